@@ -1,13 +1,24 @@
 package com.safekab.market.config;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import com.safekab.market.repository.LocationRepository;
+import com.safekab.market.repository.location.LocationAddressRepository;
 import com.safekab.market.service.OrderService;
 import com.safekab.market.service.payment.PaymentProvider;
+import com.safekab.market.service.payment.ResilientPaymentProvider;
 import com.safekab.market.service.payment.StripePaymentProvider;
+import com.safekab.market.service.payment.StubPaymentProvider;
+import com.safekab.market.service.stock.StockReservationService;
+import com.stripe.Stripe;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @Configuration
 public class PaymentConfig {
@@ -19,16 +30,56 @@ public class PaymentConfig {
       @Value("${app.payment.provider}") String provider,
       @Value("${app.server.frontend.url}") String url,
       @Value("${app.payment.webhook.secret}") String endpointSecret,
+      @Value("${app.payment.client.deadline:10000}") long deadlineMs,
+      @Value("${app.payment.client.max-concurrent:20}") int maxConcurrent,
+      @Value("${app.payment.client.queue-timeout:100}") long queueTimeoutMs,
+      @Value("${app.payment.client.failure-threshold:5}") int failureThreshold,
+      @Value("${app.payment.client.open-duration:30000}") long openDurationMs,
+      @Value("${app.server.url}") String serverUrl,
+      @Value("${app.payment.stub.checkout-latency:300}") long stubCheckoutLatencyMs,
+      @Value("${app.payment.stub.checkout-latency-sigma:0.5}") double stubCheckoutLatencySigma,
+      @Value("${app.payment.stub.webhook-delay:2000}") long stubWebhookDelayMs,
+      @Value("${app.payment.stub.webhook-delay-sigma:0.8}") double stubWebhookDelaySigma,
+      @Value("${app.payment.stub.failure-rate:0.01}") double stubFailureRate,
+      @Value("${app.payment.stub.duplicate-rate:0.05}") double stubDuplicateRate,
+      @Value("${app.payment.stub.abandon-rate:0.1}") double stubAbandonRate,
       OrderService orderService,
-      LocationRepository locationRepository) {
+      LocationRepository locationRepository,
+      LocationAddressRepository locationAddressRepository,
+      StockReservationService stockReservationService,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    ResilientPaymentProvider.Limits limits = new ResilientPaymentProvider.Limits(
+        Duration.ofMillis(deadlineMs),
+        maxConcurrent,
+        Duration.ofMillis(queueTimeoutMs),
+        failureThreshold,
+        Duration.ofMillis(openDurationMs));
+    // Webhooks are Stripe events for both providers
+    StripePaymentProvider stripe = new StripePaymentProvider(
+        apiKey,
+        currency,
+        url,
+        endpointSecret,
+        orderService,
+        locationRepository,
+        locationAddressRepository,
+        stockReservationService);
     if (provider.equals("stripe")) {
-      return new StripePaymentProvider(
-          apiKey,
-          currency,
-          url,
-          endpointSecret,
-          orderService,
-          locationRepository);
+      // Calls abandoned at the deadline still end soon after it
+      Stripe.setReadTimeout((int) deadlineMs);
+      return ResilientPaymentProvider.create(stripe, limits, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+    if (provider.equals("stub")) {
+      StubPaymentProvider.Behaviour behaviour = new StubPaymentProvider.Behaviour(
+          new StubPaymentProvider.Latency(Duration.ofMillis(stubCheckoutLatencyMs), stubCheckoutLatencySigma),
+          new StubPaymentProvider.Latency(Duration.ofMillis(stubWebhookDelayMs), stubWebhookDelaySigma),
+          stubFailureRate,
+          stubDuplicateRate,
+          stubAbandonRate);
+      return ResilientPaymentProvider.create(
+          new StubPaymentProvider(stripe, behaviour, serverUrl + "/api/payment/webhook", url, endpointSecret),
+          limits,
+          meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
     }
     throw new IllegalArgumentException("Invalid payment provider");
   }
@@ -19,6 +19,8 @@ import com.safekab.market.middleware.TokenAuthenticationFilter;
 import com.safekab.market.token.JwtBuilder;
 import com.safekab.market.token.TokenBuilder;
 
+import jakarta.servlet.DispatcherType;
+
 @Configuration
 public class SecurityConfig {
 
@@ -43,12 +45,17 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity http, TokenBuilder tokenBuilder) throws Exception {
         http.csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
+                        // Already authorized on the original request. The token filter does not
+                        // run again, so an async or error dispatch carries no authentication.
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                         .requestMatchers("/api/auth/*").permitAll()
                         .requestMatchers("/api/payment/webhook").permitAll()
                         .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/products", "/api/products/*")
                         .permitAll()
                         .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/config").permitAll()
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()));
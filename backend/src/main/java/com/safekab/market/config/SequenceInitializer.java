@@ -0,0 +1,22 @@
+package com.safekab.market.config;
+
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+public class SequenceInitializer {
+    /**
+     * order_product ids moved from IDENTITY to a pooled sequence; move the sequence
+     * past any ids issued by the identity column so generated ranges never collide.
+     */
+    @Bean
+    public CommandLineRunner alignOrderProductSequence(JdbcTemplate jdbcTemplate) {
+        return args -> jdbcTemplate.queryForObject("""
+                SELECT setval('order_product_seq', GREATEST(
+                    (SELECT COALESCE(MAX(id), 0) FROM order_product),
+                    (SELECT last_value FROM order_product_seq)))
+                """, Long.class);
+    }
+}
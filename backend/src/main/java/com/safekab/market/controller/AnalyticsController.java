@@ -0,0 +1,64 @@
+package com.safekab.market.controller;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import com.safekab.market.dto.analytics.ProductSales;
+import com.safekab.market.dto.analytics.ProductSalesRanking;
+import com.safekab.market.dto.analytics.SalesPoint;
+import com.safekab.market.entity.PaymentStatus;
+import com.safekab.market.service.analytics.SalesRollupService;
+
+// Date ranges are half open, [from, to), and default to the last 30 days
+@RestController
+@RequestMapping("/api/admin/analytics")
+public class AnalyticsController {
+
+    private static final int DEFAULT_DAYS = 30;
+
+    private final SalesRollupService salesRollupService;
+
+    public AnalyticsController(SalesRollupService salesRollupService) {
+        this.salesRollupService = salesRollupService;
+    }
+
+    @GetMapping("/sales/daily")
+    public List<SalesPoint> dailySales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "payment_status", required = false) PaymentStatus paymentStatus) {
+        LocalDate end = to != null ? to : LocalDate.now().plusDays(1);
+        return salesRollupService.daily(from != null ? from : end.minusDays(DEFAULT_DAYS), end, paymentStatus);
+    }
+
+    @GetMapping("/products/top")
+    public List<ProductSales> topProducts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "payment_status", defaultValue = "PAID") PaymentStatus paymentStatus,
+            @RequestParam(defaultValue = "REVENUE") ProductSalesRanking by,
+            @RequestParam(defaultValue = "10") int limit) {
+        LocalDate end = to != null ? to : LocalDate.now().plusDays(1);
+        return salesRollupService.topProducts(from != null ? from : end.minusDays(DEFAULT_DAYS), end, paymentStatus,
+                by, Math.max(1, Math.min(100, limit)));
+    }
+
+    // Recomputes the rollups from the orders, e.g. after a data fix
+    @PostMapping("/rebuild")
+    public RebuildResponse rebuild() {
+        return new RebuildResponse(salesRollupService.rebuild());
+    }
+
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record RebuildResponse(int dailyRows) {
+    }
+}
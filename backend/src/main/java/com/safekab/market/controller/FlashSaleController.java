@@ -0,0 +1,33 @@
+package com.safekab.market.controller;
+
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.safekab.market.dto.flashsale.FlashSaleStatusResponse;
+import com.safekab.market.service.flashsale.FlashSaleService;
+
+@RestController
+@RequestMapping("/api/flash-sales")
+public class FlashSaleController {
+
+    private final FlashSaleService flashSaleService;
+
+    public FlashSaleController(FlashSaleService flashSaleService) {
+        this.flashSaleService = flashSaleService;
+    }
+
+    @PostMapping("/{productId}/queue")
+    public FlashSaleStatusResponse joinQueue(@AuthenticationPrincipal Long userId, @PathVariable Long productId) {
+        return flashSaleService.join(userId, productId);
+    }
+
+    @GetMapping("/{productId}/queue")
+    public FlashSaleStatusResponse getQueueStatus(@AuthenticationPrincipal Long userId,
+            @PathVariable Long productId) {
+        return flashSaleService.status(userId, productId);
+    }
+}
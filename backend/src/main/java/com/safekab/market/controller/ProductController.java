@@ -1,23 +1,32 @@
 package com.safekab.market.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.safekab.market.dto.product.NewProductRequest;
+import com.safekab.market.dto.product.ProductFilter;
+import com.safekab.market.dto.product.ProductPageResponse;
 import com.safekab.market.dto.product.ProductResponse;
-import com.safekab.market.dto.product.ProductResponseItem;
+import com.safekab.market.dto.product.ProductSort;
 import com.safekab.market.dto.product.UpdateProductRequest;
-import com.safekab.market.entity.Product;
 import com.safekab.market.exception.ApiException;
 import com.safekab.market.service.ProductService;
+import com.safekab.market.service.catalog.CatalogResponseCache;
+import com.safekab.market.service.catalog.CatalogService;
+import com.safekab.market.service.catalog.EncodedBody;
 
 import jakarta.validation.Valid;
 
@@ -28,16 +37,45 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
+    @Autowired
+    private CatalogService catalogService;
+
+    // Catalog reads return pre-serialized JSON (a ProductResponse / ProductResponseItem).
+    // The ETag/Last-Modified headers let Spring answer If-None-Match with a bodiless 304.
     @GetMapping("/products")
-    public ResponseEntity<ProductResponse> getAllProducts() {
-        return ResponseEntity.ok(new ProductResponse(productService.getAllProducts()));
+    public ResponseEntity<byte[]> getAllProducts(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return encodedResponse(catalogResponseCache.catalog(), acceptEncoding);
+    }
+
+    // Paginated listing mode, selected when the client asks for a page size
+    @GetMapping(value = "/products", params = "limit")
+    public ProductPageResponse listProducts(@RequestParam int limit,
+            @RequestParam(defaultValue = "NEWEST") ProductSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(name = "min_price", required = false) Long minPrice,
+            @RequestParam(name = "max_price", required = false) Long maxPrice,
+            @RequestParam(name = "in_stock", required = false) Boolean inStock,
+            @RequestParam(required = false) String currency) {
+        return productService.listProducts(sort, new ProductFilter(minPrice, maxPrice, inStock, currency), cursor,
+                limit);
+    }
+
+    @GetMapping("/products/search")
+    public ProductResponse searchProducts(@RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ProductResponse.ofItems(catalogService.search(q, Math.max(1, Math.min(50, limit))));
     }
 
     @GetMapping("/products/{id}")
-    public ResponseEntity<ProductResponseItem> getProductById(@PathVariable Long id) {
-        Product product = productService.getProductById(id)
+    public ResponseEntity<byte[]> getProductById(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        EncodedBody body = catalogResponseCache.product(id)
                 .orElseThrow(() -> new ApiException("Product not found", HttpStatus.NOT_FOUND));
-        return ResponseEntity.ok(new ProductResponseItem(product));
+        return encodedResponse(body, acceptEncoding);
     }
 
     @PostMapping("/admin/products")
@@ -52,4 +90,18 @@ public class ProductController {
         return ResponseEntity.noContent().build();
     }
 
+    private ResponseEntity<byte[]> encodedResponse(EncodedBody body, String acceptEncoding) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .lastModified(body.lastModified())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (body.useGzip(acceptEncoding)) {
+            return response.eTag(body.gzipEtag())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(body.gzip());
+        }
+        return response.eTag(body.etag()).body(body.identity());
+    }
+
 }
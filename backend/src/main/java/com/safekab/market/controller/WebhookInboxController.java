@@ -0,0 +1,35 @@
+package com.safekab.market.controller;
+
+import java.util.List;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.safekab.market.dto.payment.WebhookEventResponse;
+import com.safekab.market.service.payment.WebhookInbox;
+
+// Payment webhooks that ran out of retries, and putting them back in the queue
+@RestController
+@RequestMapping("/api/admin/webhooks")
+public class WebhookInboxController {
+
+    private final WebhookInbox webhookInbox;
+
+    public WebhookInboxController(WebhookInbox webhookInbox) {
+        this.webhookInbox = webhookInbox;
+    }
+
+    @GetMapping("/dead")
+    public List<WebhookEventResponse> deadEvents(@RequestParam(defaultValue = "50") int limit) {
+        return webhookInbox.findDead(Math.max(1, Math.min(500, limit)));
+    }
+
+    @PostMapping("/{id}/retry")
+    public void retry(@PathVariable Long id) {
+        webhookInbox.retry(id);
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -13,10 +14,10 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.safekab.market.dto.cart.AddOrRemoveCartProductRequest;
+import com.safekab.market.dto.cart.BatchCartRequest;
 import com.safekab.market.dto.cart.CartResponse;
 import com.safekab.market.dto.cart.RemoveCartProductsRequest;
 import com.safekab.market.dto.cart.UpdateCartProductRequest;
-import com.safekab.market.entity.cart.Cart;
 import com.safekab.market.service.cart.CartService;
 
 import jakarta.validation.Valid;
@@ -30,8 +31,7 @@ public class CartController {
 
     @GetMapping
     public CartResponse getCart(@AuthenticationPrincipal Long userId) {
-        Cart cart = cartService.getCartByUser(userId);
-        return new CartResponse(cart);
+        return cartService.getCart(userId);
     }
 
     @PostMapping
@@ -48,6 +48,12 @@ public class CartController {
         return ResponseEntity.noContent().build();
     }
 
+    @PatchMapping("/batch")
+    public CartResponse applyCartOperations(@AuthenticationPrincipal Long userId,
+            @Valid @RequestBody BatchCartRequest request) {
+        return cartService.applyOperations(userId, request.getOperations());
+    }
+
     @DeleteMapping("")
     public ResponseEntity<Void> removeProductsFromCart(
             @AuthenticationPrincipal Long userId,
@@ -1,9 +1,14 @@
 package com.safekab.market.controller.order;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -13,9 +18,15 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.safekab.market.dto.order.AdminOrderFilter;
+import com.safekab.market.dto.order.AdminOrderPageResponse;
 import com.safekab.market.dto.order.AdminOrderResponse;
+import com.safekab.market.dto.order.BulkTrackingUpdateRequest;
+import com.safekab.market.dto.order.BulkTrackingUpdateResponse;
 import com.safekab.market.dto.order.CreateOrderRequest;
+import com.safekab.market.dto.order.ExportFormat;
 import com.safekab.market.dto.order.OrderResponse;
 import com.safekab.market.dto.order.UpdateOrderStatusRequest;
 import com.safekab.market.entity.Order;
@@ -23,6 +34,7 @@ import com.safekab.market.entity.PaymentStatus;
 import com.safekab.market.entity.TrackingStatus;
 import com.safekab.market.exception.ApiException;
 import com.safekab.market.service.OrderService;
+import com.safekab.market.service.order.OrderExportService;
 
 import jakarta.validation.Valid;
 
@@ -31,9 +43,11 @@ import jakarta.validation.Valid;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderExportService orderExportService) {
         this.orderService = orderService;
+        this.orderExportService = orderExportService;
     }
 
     @GetMapping("/orders")
@@ -68,6 +82,42 @@ public class OrderController {
         return orders.map(AdminOrderResponse::new);
     }
 
+    // Keyset listing mode with optional filters, selected when the client asks for a page size
+    @GetMapping(value = "/admin/orders", params = "limit")
+    public AdminOrderPageResponse listAdminOrders(@RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(name = "payment_status", required = false) PaymentStatus paymentStatus,
+            @RequestParam(name = "tracking_status", required = false) TrackingStatus trackingStatus,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(name = "user_id", required = false) Long userId,
+            @RequestParam(name = "min_total", required = false) Long minTotal) {
+        return orderService.listOrdersForAdmin(
+                new AdminOrderFilter(paymentStatus, trackingStatus, from, to, userId, minTotal), cursor, limit);
+    }
+
+    // Streams every matching order, oldest first; rows are written as they are read
+    @GetMapping("/admin/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(name = "payment_status", required = false) PaymentStatus paymentStatus,
+            @RequestParam(name = "tracking_status", required = false) TrackingStatus trackingStatus,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        AdminOrderFilter filter = new AdminOrderFilter(paymentStatus, trackingStatus, from, to, null, null);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("orders." + exportFormat.getExtension()).build().toString())
+                .body(out -> orderExportService.export(filter, exportFormat, out));
+    }
+
+    @PatchMapping("/admin/orders/batch")
+    public BulkTrackingUpdateResponse patchOrders(@Valid @RequestBody BulkTrackingUpdateRequest request) {
+        return orderService.updateTrackingStatuses(request);
+    }
+
     @PatchMapping("/admin/orders/{id}")
     public AdminOrderResponse patchOrder(@PathVariable Long id,
             @Valid @RequestBody UpdateOrderStatusRequest updateOrderRequest) {
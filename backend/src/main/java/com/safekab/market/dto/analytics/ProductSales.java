@@ -0,0 +1,12 @@
+package com.safekab.market.dto.analytics;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * Sales of one product over a date range; revenue is gross line totals in pence/cents.
+ * The name is null for products that no longer exist.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record ProductSales(long productId, String name, long orderCount, long units, long revenue) {
+}
@@ -0,0 +1,19 @@
+package com.safekab.market.dto.analytics;
+
+/**
+ * What top products are ranked by.
+ */
+public enum ProductSalesRanking {
+    REVENUE("revenue"),
+    UNITS("units");
+
+    private final String column;
+
+    ProductSalesRanking(String column) {
+        this.column = column;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+}
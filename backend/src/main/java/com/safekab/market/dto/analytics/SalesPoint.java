@@ -0,0 +1,14 @@
+package com.safekab.market.dto.analytics;
+
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import com.safekab.market.entity.PaymentStatus;
+
+/**
+ * Sales for one day and payment status; revenue includes shipping, in pence/cents.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record SalesPoint(LocalDate day, PaymentStatus paymentStatus, long orderCount, long units, long revenue) {
+}
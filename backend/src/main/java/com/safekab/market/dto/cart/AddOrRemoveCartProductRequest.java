@@ -15,6 +15,7 @@ public class AddOrRemoveCartProductRequest {
     @NotNull
     private Long productId;
 
+    @NotNull(message = "must provide a quantity")
     @Max(100)
     @Min(-100)
     private Integer quantity;
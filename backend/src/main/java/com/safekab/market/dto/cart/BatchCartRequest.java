@@ -0,0 +1,23 @@
+package com.safekab.market.dto.cart;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class BatchCartRequest {
+    // Applied in order; later operations on the same product see earlier ones
+    @NotNull
+    @NotEmpty
+    @Size(max = 200)
+    @Valid
+    private List<CartOperation> operations;
+}
@@ -0,0 +1,26 @@
+package com.safekab.market.dto.cart;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * One change to a cart line: either a relative {@code delta} or an absolute
+ * {@code quantity}, where a quantity of 0 removes the line.
+ */
+@Data
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class CartOperation {
+    @NotNull(message = "must provide a product id")
+    private Long productId;
+    @Min(-100)
+    @Max(100)
+    private Integer delta;
+    @Min(value = 0, message = "must provide a quantity of zero or more")
+    @Max(value = 100, message = "must provide a quantity less than or equal to 100")
+    private Integer quantity;
+}
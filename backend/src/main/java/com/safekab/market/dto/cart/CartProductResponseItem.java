@@ -2,6 +2,7 @@ package com.safekab.market.dto.cart;
 
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import com.safekab.market.entity.Product;
 
 import lombok.Data;
 
@@ -16,6 +17,9 @@ public class CartProductResponseItem {
     private final Integer vatRate;
     private final Integer stock;
     private final Integer quantity;
+    // Gross unit price and unit price * quantity, in pence
+    private final Long unitPrice;
+    private final Long lineTotal;
 
     public CartProductResponseItem(Long productId, String name, String description, Long netPrice, Integer vatRate,
             Integer stock,
@@ -27,5 +31,7 @@ public class CartProductResponseItem {
         this.vatRate = vatRate;
         this.stock = stock;
         this.quantity = quantity;
+        this.unitPrice = Product.grossPrice(netPrice, vatRate);
+        this.lineTotal = unitPrice * quantity;
     }
 }
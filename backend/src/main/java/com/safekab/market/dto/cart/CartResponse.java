@@ -11,10 +11,10 @@ public class CartResponse {
 
     private final Long cartId;
     private final Set<CartProductResponseItem> products;
+    private final CartSummary summary;
 
-    public CartResponse(Cart cart) {
-        this.cartId = cart.getId();
-        this.products = cart.getCartProducts().stream()
+    public CartResponse(Cart cart, long shippingCost) {
+        this(cart.getId(), cart.getCartProducts().stream()
                 .map(cp -> new CartProductResponseItem(
                         cp.getProduct().getId(),
                         cp.getProduct().getName(),
@@ -24,12 +24,13 @@ public class CartResponse {
                         cp.getProduct().getStock(),
                         cp.getQuantity()))
 
-                .collect(java.util.stream.Collectors.toSet());
+                .collect(java.util.stream.Collectors.toSet()), shippingCost);
     }
 
-    public CartResponse(Long cartId, Set<CartProductResponseItem> products) {
+    public CartResponse(Long cartId, Set<CartProductResponseItem> products, long shippingCost) {
         this.cartId = cartId;
         this.products = products;
+        this.summary = CartSummary.of(products, shippingCost);
     }
 
     public Long getCartId() {
@@ -39,4 +40,8 @@ public class CartResponse {
     public Set<CartProductResponseItem> getProducts() {
         return products;
     }
+
+    public CartSummary getSummary() {
+        return summary;
+    }
 }
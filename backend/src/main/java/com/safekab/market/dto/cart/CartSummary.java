@@ -0,0 +1,53 @@
+package com.safekab.market.dto.cart;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import com.safekab.market.entity.Product;
+
+/**
+ * Cart totals in pence, rounded exactly as orders are charged: VAT is rounded per
+ * unit, then multiplied by quantity.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record CartSummary(
+        int itemCount,
+        long subtotalNet,
+        List<VatLine> vat,
+        long vatTotal,
+        long subtotal,
+        long shipping,
+        long total) {
+
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record VatLine(int rate, long net, long vat) {
+    }
+
+    public static CartSummary of(Collection<CartProductResponseItem> items, long shippingCost) {
+        int itemCount = 0;
+        long subtotalNet = 0;
+        long vatTotal = 0;
+        Map<Integer, long[]> byRate = new TreeMap<>();
+        for (CartProductResponseItem item : items) {
+            long net = item.getNetPrice() * item.getQuantity();
+            long vat = Product.vatAmount(item.getNetPrice(), item.getVatRate()) * item.getQuantity();
+            long[] totals = byRate.computeIfAbsent(item.getVatRate(), rate -> new long[2]);
+            totals[0] += net;
+            totals[1] += vat;
+            itemCount += item.getQuantity();
+            subtotalNet += net;
+            vatTotal += vat;
+        }
+        List<VatLine> vat = byRate.entrySet().stream()
+                .map(entry -> new VatLine(entry.getKey(), entry.getValue()[0], entry.getValue()[1]))
+                .toList();
+        // Shipping is only charged on a cart with something in it
+        long shipping = items.isEmpty() ? 0 : shippingCost;
+        long subtotal = subtotalNet + vatTotal;
+        return new CartSummary(itemCount, subtotalNet, vat, vatTotal, subtotal, shipping, subtotal + shipping);
+    }
+}
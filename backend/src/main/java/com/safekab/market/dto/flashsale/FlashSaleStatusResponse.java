@@ -0,0 +1,32 @@
+package com.safekab.market.dto.flashsale;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class FlashSaleStatusResponse {
+
+    public enum State {
+        NOT_QUEUED,
+        WAITING,
+        ADMITTED,
+        SOLD_OUT
+    }
+
+    private Long productId;
+    private State state;
+    // Buyers ahead in the queue, while waiting
+    private Long position;
+    private Long estimatedWaitSeconds;
+    // When an admission lapses if no order is placed
+    private Instant admittedUntil;
+    // Suggested delay before polling again
+    private Long retryAfterMs;
+}
@@ -0,0 +1,15 @@
+package com.safekab.market.dto.order;
+
+import java.time.LocalDateTime;
+
+import com.safekab.market.entity.PaymentStatus;
+import com.safekab.market.entity.TrackingStatus;
+
+/**
+ * Optional filters for the admin order listing. The date range is half open
+ * ({@code from} inclusive, {@code to} exclusive) and {@code minTotal} is in
+ * pence/cents. Null fields are not applied.
+ */
+public record AdminOrderFilter(PaymentStatus paymentStatus, TrackingStatus trackingStatus, LocalDateTime from,
+        LocalDateTime to, Long userId, Long minTotal) {
+}
@@ -20,6 +20,8 @@ public class AdminOrderResponse {
     private PaymentStatus paymentStatus;
     private TrackingStatus trackingStatus;
     private LocalDateTime orderDate;
+    private Long subtotalNet;
+    private Long vatTotal;
     private Long totalPrice;
     private Long shippingCost;
     private List<OrderProductResponse> items;
@@ -66,6 +68,8 @@ public class AdminOrderResponse {
         this.paymentStatus = order.getPaymentStatus();
         this.trackingStatus = order.getTrackingStatus();
         this.orderDate = order.getOrderDate();
+        this.subtotalNet = order.getSubtotalNet();
+        this.vatTotal = order.getVatTotal();
         this.totalPrice = order.getTotalPrice();
         this.shippingCost = order.getShippingCost();
         this.items = order.getOrderProducts().stream()
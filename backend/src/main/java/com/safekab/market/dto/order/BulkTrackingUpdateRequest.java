@@ -0,0 +1,42 @@
+package com.safekab.market.dto.order;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import com.safekab.market.entity.PaymentStatus;
+import com.safekab.market.entity.TrackingStatus;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * Move orders to a new tracking status, chosen either by id or by filter.
+ */
+@Data
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class BulkTrackingUpdateRequest {
+    @NotNull(message = "Tracking status is required")
+    private TrackingStatus trackingStatus;
+    @Size(max = 1000)
+    private List<@NotNull Long> orderIds;
+    @Valid
+    private Selection filter;
+
+    @Data
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public static class Selection {
+        private PaymentStatus paymentStatus;
+        // Current tracking status of the orders to move
+        private TrackingStatus trackingStatus;
+        private LocalDateTime from;
+        private LocalDateTime to;
+
+        public AdminOrderFilter toFilter() {
+            return new AdminOrderFilter(paymentStatus, trackingStatus, from, to, null, null);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.safekab.market.dto.order;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import com.safekab.market.entity.TrackingStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class BulkTrackingUpdateResponse {
+    private int updated;
+    private List<Result> results;
+
+    public enum Outcome {
+        UPDATED,
+        // Already in the requested status
+        UNCHANGED,
+        INVALID_TRANSITION,
+        NOT_FOUND
+    }
+
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record Result(Long orderId, Outcome outcome, TrackingStatus previousStatus) {
+    }
+}
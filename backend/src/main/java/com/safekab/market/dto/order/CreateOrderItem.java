@@ -3,13 +3,18 @@ package com.safekab.market.dto.order;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
 
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import lombok.Data;
 
 @Data
 @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
 public class CreateOrderItem {
 
+    @NotNull(message = "must provide a product id")
     private Long productId;
+    @NotNull(message = "must provide a quantity")
+    @Positive(message = "must provide a positive quantity")
     private Integer quantity;
 
 }
\ No newline at end of file
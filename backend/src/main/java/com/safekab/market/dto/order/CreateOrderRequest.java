@@ -5,6 +5,8 @@ import java.util.List;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
@@ -13,6 +15,8 @@ import lombok.Data;
 public class CreateOrderRequest {
 
     @NotNull
+    @NotEmpty
+    @Valid
     private List<CreateOrderItem> items;
     private String promotionCode;
 }
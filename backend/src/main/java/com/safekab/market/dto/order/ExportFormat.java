@@ -0,0 +1,36 @@
+package com.safekab.market.dto.order;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import com.safekab.market.exception.ApiException;
+
+public enum ExportFormat {
+    CSV(new MediaType("text", "csv"), "csv"),
+    NDJSON(new MediaType("application", "x-ndjson"), "ndjson");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ExportFormat of(String format) {
+        for (ExportFormat value : values()) {
+            if (value.extension.equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new ApiException("Unsupported export format: " + format, HttpStatus.BAD_REQUEST);
+    }
+}
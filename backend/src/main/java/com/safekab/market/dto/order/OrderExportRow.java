@@ -0,0 +1,21 @@
+package com.safekab.market.dto.order;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import com.safekab.market.entity.PaymentStatus;
+import com.safekab.market.entity.TrackingStatus;
+
+/**
+ * One order in an admin export. Amounts are in pence/cents; totals are null on
+ * orders the totals backfill has not reached yet.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record OrderExportRow(Long id, LocalDateTime orderDate, Long userId, String email,
+        PaymentStatus paymentStatus, TrackingStatus trackingStatus, Integer itemCount, Long subtotalNet,
+        Long vatTotal, Long shippingCost, Long totalPrice, String promotionCode) {
+
+    public static final String CSV_HEADER = "id,order_date,user_id,email,payment_status,tracking_status,"
+            + "item_count,subtotal_net,vat_total,shipping_cost,total_price,promotion_code";
+}
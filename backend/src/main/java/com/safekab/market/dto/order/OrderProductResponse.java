@@ -12,9 +12,16 @@ import lombok.Data;
 public class OrderProductResponse {
     private ProductResponseItem product;
     private Integer quantity;
+    // Prices charged for this line, which may differ from the product's current price
+    private Long unitNetPrice;
+    private Long unitPrice;
+    private Long lineTotal;
 
     public OrderProductResponse(OrderProduct orderProduct) {
         this.product = new ProductResponseItem(orderProduct.getProduct());
         this.quantity = orderProduct.getQuantity();
+        this.unitNetPrice = orderProduct.getChargedUnitNetPrice();
+        this.unitPrice = orderProduct.getChargedUnitPrice();
+        this.lineTotal = unitPrice * quantity;
     }
 }
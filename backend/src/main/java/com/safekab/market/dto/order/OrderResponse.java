@@ -19,6 +19,8 @@ public class OrderResponse {
     private PaymentStatus paymentStatus;
     private TrackingStatus trackingStatus;
     private LocalDateTime orderDate;
+    private Long subtotalNet;
+    private Long vatTotal;
     private Long totalPrice;
     private Long shippingCost;
     private List<OrderProductResponse> items;
@@ -28,6 +30,8 @@ public class OrderResponse {
         this.paymentStatus = order.getPaymentStatus();
         this.trackingStatus = order.getTrackingStatus();
         this.orderDate = order.getOrderDate();
+        this.subtotalNet = order.getSubtotalNet();
+        this.vatTotal = order.getVatTotal();
         this.totalPrice = order.getTotalPrice();
         this.shippingCost = order.getShippingCost();
         this.items = order.getOrderProducts().stream()
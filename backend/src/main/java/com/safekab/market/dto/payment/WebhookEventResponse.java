@@ -0,0 +1,14 @@
+package com.safekab.market.dto.payment;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+/**
+ * A webhook event in the inbox, without its payload.
+ */
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record WebhookEventResponse(long id, String eventId, String type, Long orderId, int attempts,
+        String lastError, LocalDateTime receivedAt) {
+}
@@ -8,6 +8,7 @@ import com.fasterxml.jackson.databind.annotation.JsonNaming;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 import lombok.Data;
 
 @Data
@@ -21,6 +22,8 @@ public class NewProductRequest {
     private Long netPrice;
 
     private Integer stock;
+    @Positive(message = "Flash sale rate must be positive")
+    private Integer flashSaleRate;
     @NotNull(message = "Currency is mandatory")
     private String currency;
     @NotNull(message = "VAT rate is mandatory")
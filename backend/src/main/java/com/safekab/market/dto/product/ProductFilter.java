@@ -0,0 +1,8 @@
+package com.safekab.market.dto.product;
+
+/**
+ * Optional filters for the paginated product listing. Prices are net, in
+ * pence/cents. Null fields are not applied.
+ */
+public record ProductFilter(Long minPrice, Long maxPrice, Boolean inStock, String currency) {
+}
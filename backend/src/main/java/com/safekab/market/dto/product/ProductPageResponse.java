@@ -0,0 +1,18 @@
+package com.safekab.market.dto.product;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public class ProductPageResponse {
+    private List<ProductResponseItem> products;
+    // Opaque cursor for the next page, null on the last page
+    private String nextCursor;
+}
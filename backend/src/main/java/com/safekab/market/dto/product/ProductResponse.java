@@ -24,6 +24,15 @@ public class ProductResponse {
         this.products = List.of(new ProductResponseItem(product));
     }
 
+    private ProductResponse() {
+    }
+
+    public static ProductResponse ofItems(List<ProductResponseItem> items) {
+        ProductResponse response = new ProductResponse();
+        response.products = items;
+        return response;
+    }
+
     public List<ProductResponseItem> getProducts() {
         return products;
     }
@@ -21,6 +21,7 @@ public class ProductResponseItem {
     private Long netPrice;
     private Integer vatRate;
     private Integer stock;
+    private Integer flashSaleRate;
     private List<ProductImageResponse> images;
 
     public ProductResponseItem(Product product) {
@@ -30,6 +31,7 @@ public class ProductResponseItem {
         this.netPrice = product.getNetPrice();
         this.vatRate = product.getVatRate();
         this.stock = product.getStock();
+        this.flashSaleRate = product.getFlashSaleRate();
         this.images = product.getImages().stream()
                 .map(ProductImageResponse::new)
                 .toList();
@@ -0,0 +1,29 @@
+package com.safekab.market.dto.product;
+
+/**
+ * Sort orders supported by the paginated product listing. Every order is
+ * made total by breaking ties on id, which the keyset cursor relies on.
+ */
+public enum ProductSort {
+    PRICE_ASC("netPrice", true),
+    PRICE_DESC("netPrice", false),
+    NAME_ASC("name", true),
+    NAME_DESC("name", false),
+    NEWEST("id", false);
+
+    private final String property;
+    private final boolean ascending;
+
+    ProductSort(String property, boolean ascending) {
+        this.property = property;
+        this.ascending = ascending;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+}
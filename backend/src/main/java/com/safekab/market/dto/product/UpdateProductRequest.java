@@ -22,6 +22,9 @@ public class UpdateProductRequest {
     private Integer vatRate;
     private String currency;
     private Integer stock;
+    // 0 ends the flash sale
+    @PositiveOrZero
+    private Integer flashSaleRate;
 
     @Valid
     private List<ProductMediaRequest> media;
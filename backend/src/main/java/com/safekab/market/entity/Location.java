@@ -1,12 +1,22 @@
 package com.safekab.market.entity;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,7 +25,10 @@ import lombok.NoArgsConstructor;
 @Entity
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "locations")
+@Table(name = "locations", uniqueConstraints = {
+        // one row per distinct address per user
+        @UniqueConstraint(columnNames = { "user_id", "address_key" })
+})
 public class Location {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -26,7 +39,37 @@ public class Location {
     private String postalCode;
     private String country;
 
+    // Null on rows saved before keys existed, until the backfill reaches them
+    @Column(name = "address_key", nullable = true, length = 64)
+    private String addressKey;
+
     @ManyToOne(fetch = jakarta.persistence.FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
+
+    @PrePersist
+    @PreUpdate
+    void updateAddressKey() {
+        addressKey = addressKey(line1, line2, city, postalCode, country);
+    }
+
+    /**
+     * Fingerprint of an address that ignores case, surrounding and repeated
+     * whitespace, spaces in the postal code, and the difference between a missing
+     * and a blank field.
+     */
+    public static String addressKey(String line1, String line2, String city, String postalCode, String country) {
+        String normalized = String.join("\u001f", fold(line1), fold(line2), fold(city),
+                fold(postalCode).replace(" ", ""), fold(country));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String fold(String value) {
+        return value == null ? "" : value.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
 }
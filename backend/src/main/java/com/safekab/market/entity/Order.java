@@ -1,7 +1,12 @@
 package com.safekab.market.entity;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.Set;
 
 import org.hibernate.annotations.CreationTimestamp;
@@ -17,6 +22,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -31,7 +37,14 @@ import lombok.ToString;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        // sweep of reservations past their expiry
+        @Index(name = "idx_orders_reservation_expiry", columnList = "reservation_status, reservation_expires_at"),
+        // admin listing, newest first: unfiltered, by status pair and by customer
+        @Index(name = "idx_orders_date", columnList = "order_date, id"),
+        @Index(name = "idx_orders_status_date", columnList = "payment_status, tracking_status, order_date, id"),
+        @Index(name = "idx_orders_user_date", columnList = "user_id, order_date, id")
+})
 public class Order {
 
     @Id
@@ -70,17 +83,92 @@ public class Order {
     @Column(nullable = false)
     private Long shippingCost = 0L; // Shipping cost in pence/cents
 
+    // Null for orders placed before stock reservation existed
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reservation_status", nullable = true)
+    private ReservationStatus reservationStatus;
+
+    @Column(name = "reservation_expires_at", nullable = true)
+    private LocalDateTime reservationExpiresAt;
+
+    // Stored totals in pence/cents, set when the order is placed. Null on older
+    // orders until the backfill reaches them.
+    @Column(nullable = true)
+    private Long subtotalNet;
+
+    @Column(nullable = true)
+    private Long vatTotal;
+
+    @Column(nullable = true)
+    private Long totalPrice;
+
+    // The last checkout session started for the order. It is reused while it has
+    // time left and the order's contents still hash to checkoutHash.
+    @Column(name = "checkout_session_id", nullable = true)
+    private String checkoutSessionId;
+
+    @Column(name = "checkout_url", nullable = true, length = 2048)
+    private String checkoutUrl;
+
+    @Column(name = "checkout_expires_at", nullable = true)
+    private LocalDateTime checkoutExpiresAt;
+
+    @Column(name = "checkout_hash", nullable = true)
+    private String checkoutHash;
+
     public void addOrderProduct(Product product, Integer quantity) {
         OrderProduct orderProduct = new OrderProduct();
         orderProduct.setOrder(this);
         orderProduct.setProduct(product);
         orderProduct.setQuantity(quantity);
+        orderProduct.setUnitNetPrice(product.getNetPrice());
+        orderProduct.setVatRate(product.getVatRate());
+        orderProduct.setUnitPrice(product.getPrice());
         orderProducts.add(orderProduct);
     }
 
+    /**
+     * Store the totals from the line snapshots and shipping cost.
+     */
+    public void updateTotals() {
+        long net = 0;
+        long gross = 0;
+        for (OrderProduct item : orderProducts) {
+            net += item.getChargedUnitNetPrice() * item.getQuantity();
+            gross += item.getChargedUnitPrice() * item.getQuantity();
+        }
+        subtotalNet = net;
+        vatTotal = gross - net;
+        totalPrice = gross + shippingCost;
+    }
+
+    /**
+     * Hash of what checkout charges for: each line's product, quantity and unit
+     * price, and the shipping cost.
+     */
+    public String contentHash() {
+        StringBuilder contents = new StringBuilder().append(shippingCost);
+        orderProducts.stream()
+                .sorted(Comparator.comparing((OrderProduct item) -> item.getProduct().getId())
+                        .thenComparing(OrderProduct::getQuantity))
+                .forEach(item -> contents.append('|').append(item.getProduct().getId())
+                        .append(':').append(item.getQuantity())
+                        .append(':').append(item.getChargedUnitPrice()));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(contents.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public Long getTotalPrice() {
+        if (totalPrice != null) {
+            return totalPrice;
+        }
         Long productTotal = orderProducts.stream()
-                .mapToLong(item -> item.getProduct().getPrice() * item.getQuantity())
+                .mapToLong(item -> item.getChargedUnitPrice() * item.getQuantity())
                 .sum();
         return productTotal + shippingCost;
     }
@@ -2,6 +2,7 @@ package com.safekab.market.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
@@ -9,6 +10,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -16,8 +18,10 @@ import lombok.Setter;
 @Getter
 @Setter
 public class OrderProduct {
+    // Sequence ids (not IDENTITY) so order lines can be inserted in JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_product_seq")
+    @SequenceGenerator(name = "order_product_seq", sequenceName = "order_product_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -31,4 +35,25 @@ public class OrderProduct {
 
     private Integer quantity;
 
+    // Prices at the time of ordering, so later catalog edits never change a placed
+    // order. Null on lines placed before snapshots until the backfill reaches them.
+    @Column(nullable = true)
+    private Long unitNetPrice;
+
+    @Column(nullable = true)
+    private Integer vatRate;
+
+    @Column(nullable = true)
+    private Long unitPrice;
+
+    /**
+     * Gross price of one unit, from the snapshot when there is one.
+     */
+    public long getChargedUnitPrice() {
+        return unitPrice != null ? unitPrice : product.getPrice();
+    }
+
+    public long getChargedUnitNetPrice() {
+        return unitNetPrice != null ? unitNetPrice : product.getNetPrice();
+    }
 }
\ No newline at end of file
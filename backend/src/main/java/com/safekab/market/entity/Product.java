@@ -11,6 +11,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
@@ -24,7 +25,11 @@ import lombok.ToString;
 @AllArgsConstructor
 @ToString
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        // keyset pagination on (sort key, id) for the product listing
+        @Index(name = "idx_products_net_price_id", columnList = "net_price, id"),
+        @Index(name = "idx_products_currency_net_price_id", columnList = "currency, net_price, id")
+})
 public class Product {
 
     @Id
@@ -49,6 +54,10 @@ public class Product {
     @Column(nullable = true)
     private Integer stock;
 
+    // Buyers admitted per second while the product is in a flash sale; null when it is not
+    @Column(nullable = true)
+    private Integer flashSaleRate;
+
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     @OrderBy("displayOrder ASC")
     private List<ProductImage> images;
@@ -58,7 +67,18 @@ public class Product {
     private Set<OrderProduct> orderItems;
 
     public long getPrice() {
-        long vatAmount = (vatRate * netPrice + 50) / 100;
-        return netPrice + vatAmount;
+        return grossPrice(netPrice, vatRate);
+    }
+
+    /**
+     * VAT on one unit, rounded half up to the penny. Line and order totals multiply
+     * the rounded unit amounts, so every total agrees with the unit price shown.
+     */
+    public static long vatAmount(long netPrice, int vatRate) {
+        return (vatRate * netPrice + 50) / 100;
+    }
+
+    public static long grossPrice(long netPrice, int vatRate) {
+        return netPrice + vatAmount(netPrice, vatRate);
     }
 }
@@ -0,0 +1,7 @@
+package com.safekab.market.entity;
+
+public enum ReservationStatus {
+    RESERVED,
+    COMMITTED,
+    RELEASED
+}
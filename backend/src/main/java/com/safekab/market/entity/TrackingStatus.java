@@ -5,6 +5,13 @@ public enum TrackingStatus {
     SHIPPED,
     IN_TRANSIT,
     DELIVERED,
-    RETURNED
-}
+    RETURNED;
 
+    /**
+     * Whether a bulk update may move an order from this status to {@code next}:
+     * parcels only move forward, and only shipped orders can be returned.
+     */
+    public boolean canMoveTo(TrackingStatus next) {
+        return next.ordinal() > ordinal() && !(this == NOT_SHIPPED && next == RETURNED);
+    }
+}
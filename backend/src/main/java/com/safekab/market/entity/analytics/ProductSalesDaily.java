@@ -0,0 +1,56 @@
+package com.safekab.market.entity.analytics;
+
+import java.time.LocalDate;
+
+import com.safekab.market.entity.PaymentStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Sales of one product per day and payment status, sharded like {@link SalesDaily}.
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "product_sales_daily", uniqueConstraints = {
+        @UniqueConstraint(columnNames = { "day", "product_id", "payment_status", "shard" })
+})
+public class ProductSalesDaily {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    // Not a foreign key: rollups outlive the products they describe
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status", nullable = false)
+    private PaymentStatus paymentStatus;
+
+    @Column(nullable = false)
+    private Short shard;
+
+    @Column(nullable = false)
+    private Long orderCount;
+
+    @Column(nullable = false)
+    private Long units;
+
+    // Gross line totals, in pence/cents
+    @Column(nullable = false)
+    private Long revenue;
+}
@@ -0,0 +1,54 @@
+package com.safekab.market.entity.analytics;
+
+import java.time.LocalDate;
+
+import com.safekab.market.entity.PaymentStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Orders per day and payment status, kept up to date as orders are placed and
+ * paid. Each day and status is split over a few shard rows (order id modulo the
+ * shard count) so concurrent checkouts do not queue on one row; readers sum them.
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "sales_daily", uniqueConstraints = {
+        @UniqueConstraint(columnNames = { "day", "payment_status", "shard" })
+})
+public class SalesDaily {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status", nullable = false)
+    private PaymentStatus paymentStatus;
+
+    @Column(nullable = false)
+    private Short shard;
+
+    @Column(nullable = false)
+    private Long orderCount;
+
+    @Column(nullable = false)
+    private Long units;
+
+    // Order totals including shipping, in pence/cents
+    @Column(nullable = false)
+    private Long revenue;
+}
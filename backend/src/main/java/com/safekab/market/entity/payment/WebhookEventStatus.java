@@ -0,0 +1,9 @@
+package com.safekab.market.entity.payment;
+
+public enum WebhookEventStatus {
+    PENDING,
+    PROCESSING,
+    DONE,
+    // Gave up after the last retry; needs a look and a manual retry
+    DEAD
+}
@@ -0,0 +1,75 @@
+package com.safekab.market.entity.payment;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A verified payment provider webhook, stored as received and applied later by
+ * the inbox worker. The provider's event id is unique, and so is each event type
+ * per object, so redeliveries and re-sent copies of an event are stored once.
+ */
+@Entity
+@Getter
+@Setter
+@Table(name = "webhook_inbox", uniqueConstraints = {
+        @UniqueConstraint(columnNames = { "type", "object_id" })
+}, indexes = {
+        @Index(name = "idx_webhook_inbox_status_next", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_webhook_inbox_order", columnList = "order_id, id")
+})
+public class WebhookInboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false, unique = true)
+    private String eventId;
+
+    @Column(nullable = false)
+    private String type;
+
+    @Column(name = "object_id")
+    private String objectId;
+
+    // Events for the same order are applied one at a time, in arrival order
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WebhookEventStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // While PROCESSING: when the claim lapses and another worker may take the event
+    @Column(name = "locked_until")
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "last_error", columnDefinition = "text")
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
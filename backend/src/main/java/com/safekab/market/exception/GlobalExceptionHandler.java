@@ -15,6 +15,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 
 import java.util.List;
@@ -72,6 +73,13 @@ public class GlobalExceptionHandler {
     return build(HttpStatus.BAD_REQUEST, message, request.getRequestURI(), null);
   }
 
+  @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+  public ResponseEntity<ErrorResponse> handleTypeMismatch(MethodArgumentTypeMismatchException ex,
+      HttpServletRequest request) {
+    String message = String.format("Invalid value '%s' for parameter '%s'", ex.getValue(), ex.getName());
+    return build(HttpStatus.BAD_REQUEST, message, request.getRequestURI(), null);
+  }
+
   @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
   public ResponseEntity<ErrorResponse> handleMethodNotSupported(HttpRequestMethodNotSupportedException ex,
       HttpServletRequest request) {
@@ -0,0 +1,55 @@
+package com.safekab.market.middleware;
+
+/**
+ * JDBC work done on behalf of the current request: statements executed,
+ * rows read or written and time spent inside the driver. Bound to the
+ * request thread by {@link QueryStatsFilter} and fed by
+ * {@link QueryStatsListener}.
+ */
+public final class QueryStats {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long rows;
+    private long jdbcNanos;
+
+    static QueryStats begin() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Stats for the request running on this thread, or null outside a request.
+     */
+    static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    void recordStatement(long nanos, long affectedRows) {
+        statements++;
+        jdbcNanos += nanos;
+        rows += affectedRows;
+    }
+
+    void recordRow() {
+        rows++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+}
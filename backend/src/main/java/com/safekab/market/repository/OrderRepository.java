@@ -1,16 +1,26 @@
 package com.safekab.market.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.safekab.market.entity.Order;
 import com.safekab.market.entity.PaymentStatus;
+import com.safekab.market.entity.ReservationStatus;
 import com.safekab.market.entity.TrackingStatus;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
     Optional<Order> findByIdAndUserId(Long id, Long userId);
 
     Page<Order> findAllByUserId(Long userId, Pageable pageable);
@@ -22,4 +32,76 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
             PaymentStatus paymentStatus,
             TrackingStatus trackingStatus,
             Pageable pageable);
+
+    // Listing reads page over ids first, then fetch the whole graph for that page in
+    // one statement. Paging a collection fetch directly would happen in memory.
+    @Query("SELECT o.id FROM Order o WHERE o.user.id = :userId")
+    Page<Long> findIdsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT o.id FROM Order o WHERE o.paymentStatus = :paymentStatus AND o.trackingStatus = :trackingStatus")
+    Page<Long> findIdsByPaymentStatusAndTrackingStatus(
+            @Param("paymentStatus") PaymentStatus paymentStatus,
+            @Param("trackingStatus") TrackingStatus trackingStatus,
+            Pageable pageable);
+
+    @EntityGraph(attributePaths = { "orderProducts", "orderProducts.product", "orderProducts.product.images" })
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(attributePaths = { "user", "shipmentLocation", "orderProducts", "orderProducts.product",
+            "orderProducts.product.images" })
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids")
+    List<Order> findWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(attributePaths = { "orderProducts", "orderProducts.product", "orderProducts.product.images" })
+    Optional<Order> findWithItemsByIdAndUserId(Long id, Long userId);
+
+    // Lines and products for pricing a checkout
+    @EntityGraph(attributePaths = { "orderProducts", "orderProducts.product" })
+    Optional<Order> findWithLinesById(Long id);
+
+    @EntityGraph(attributePaths = { "user", "shipmentLocation", "orderProducts", "orderProducts.product",
+            "orderProducts.product.images" })
+    Optional<Order> findWithDetailsById(Long id);
+
+    // Reservation state changes are compare-and-set so that a payment and an expiry
+    // racing on the same order cannot both win
+    @Modifying
+    @Query("UPDATE Order o SET o.reservationStatus = :to WHERE o.id = :id AND o.reservationStatus = :from")
+    int transitionReservation(@Param("id") Long id, @Param("from") ReservationStatus from,
+            @Param("to") ReservationStatus to);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.reservationStatus = 'RELEASED' WHERE o.id = :id AND o.reservationStatus = 'RESERVED' AND o.reservationExpiresAt <= :expiredBy")
+    int releaseReservation(@Param("id") Long id, @Param("expiredBy") LocalDateTime expiredBy);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Order o SET o.checkoutSessionId = :sessionId, o.checkoutUrl = :url, o.checkoutExpiresAt = :expiresAt, o.checkoutHash = :hash WHERE o.id = :id")
+    int updateCheckoutSession(@Param("id") Long id, @Param("sessionId") String sessionId, @Param("url") String url,
+            @Param("expiresAt") LocalDateTime expiresAt, @Param("hash") String hash);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.reservationStatus = 'RESERVED', o.reservationExpiresAt = :expiresAt WHERE o.id = :id AND o.reservationStatus = :from")
+    int renewReservation(@Param("id") Long id, @Param("from") ReservationStatus from,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Query("SELECT o.reservationStatus FROM Order o WHERE o.id = :id")
+    Optional<ReservationStatus> findReservationStatusById(@Param("id") Long id);
+
+    @Query("SELECT o.paymentStatus FROM Order o WHERE o.id = :id")
+    Optional<PaymentStatus> findPaymentStatusById(@Param("id") Long id);
+
+    @Query("SELECT o.id FROM Order o WHERE o.reservationStatus = :status AND o.reservationExpiresAt < :before ORDER BY o.reservationExpiresAt")
+    List<Long> findIdsByReservationExpiredBefore(@Param("status") ReservationStatus status,
+            @Param("before") LocalDateTime before, Pageable pageable);
+
+    @Query("SELECT op.product.id AS productId, op.quantity AS quantity FROM OrderProduct op WHERE op.order.id = :orderId")
+    List<OrderLine> findLinesByOrderId(@Param("orderId") Long orderId);
+
+    interface OrderLine {
+        Long getProductId();
+
+        Integer getQuantity();
+    }
 }
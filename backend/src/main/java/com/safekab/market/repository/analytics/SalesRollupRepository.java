@@ -0,0 +1,172 @@
+package com.safekab.market.repository.analytics;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.safekab.market.dto.analytics.ProductSales;
+import com.safekab.market.dto.analytics.ProductSalesRanking;
+import com.safekab.market.dto.analytics.SalesPoint;
+import com.safekab.market.entity.PaymentStatus;
+
+/**
+ * Reads and incremental writes of the sales rollup tables. Writes add signed
+ * deltas with upserts, so recording and moving an order never reads a rollup row.
+ */
+@Repository
+public class SalesRollupRepository {
+
+    public static final int SHARDS = 16;
+
+    // Both tables in one statement: the daily row, then one row per product
+    private static final String ADD = """
+            WITH daily AS (
+                INSERT INTO sales_daily (day, payment_status, shard, order_count, units, revenue)
+                VALUES (?, ?, ?, ?, ?, ?)
+                ON CONFLICT (day, payment_status, shard) DO UPDATE SET
+                    order_count = sales_daily.order_count + EXCLUDED.order_count,
+                    units = sales_daily.units + EXCLUDED.units,
+                    revenue = sales_daily.revenue + EXCLUDED.revenue
+            )
+            INSERT INTO product_sales_daily (day, product_id, payment_status, shard, order_count, units, revenue)
+            SELECT ?, t.product_id, ?, ?, ?, t.units, t.revenue
+            FROM unnest(?, ?, ?) AS t(product_id, units, revenue)
+            ON CONFLICT (day, product_id, payment_status, shard) DO UPDATE SET
+                order_count = product_sales_daily.order_count + EXCLUDED.order_count,
+                units = product_sales_daily.units + EXCLUDED.units,
+                revenue = product_sales_daily.revenue + EXCLUDED.revenue
+            """;
+
+    // Line prices fall back to the live product price for lines without a snapshot;
+    // rounding matches Product.vatAmount
+    private static final String REBUILD_DAILY = """
+            INSERT INTO sales_daily (day, payment_status, shard, order_count, units, revenue)
+            SELECT o.order_date::date, o.payment_status, o.id %% %1$d, COUNT(*), COALESCE(SUM(l.units), 0),
+                   COALESCE(SUM(l.gross), 0) + SUM(o.shipping_cost)
+            FROM orders o
+            LEFT JOIN (
+                SELECT op.order_id, SUM(op.quantity) AS units,
+                       SUM(op.quantity * COALESCE(op.unit_price, p.net_price + (p.vat_rate * p.net_price + 50) / 100)) AS gross
+                FROM order_product op JOIN products p ON p.id = op.product_id
+                GROUP BY op.order_id
+            ) l ON l.order_id = o.id
+            GROUP BY 1, 2, 3
+            """.formatted(SHARDS);
+
+    private static final String REBUILD_PRODUCTS = """
+            INSERT INTO product_sales_daily (day, product_id, payment_status, shard, order_count, units, revenue)
+            SELECT o.order_date::date, op.product_id, o.payment_status, o.id %% %1$d, COUNT(DISTINCT o.id),
+                   SUM(op.quantity),
+                   SUM(op.quantity * COALESCE(op.unit_price, p.net_price + (p.vat_rate * p.net_price + 50) / 100))
+            FROM orders o
+            JOIN order_product op ON op.order_id = o.id
+            JOIN products p ON p.id = op.product_id
+            GROUP BY 1, 2, 3, 4
+            """.formatted(SHARDS);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SalesRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * One order's contribution to the rollups: its day, shard, totals and a line
+     * per distinct product.
+     */
+    public record Contribution(LocalDate day, short shard, long units, long revenue, Long[] productIds,
+            Long[] productUnits, Long[] productRevenue) {
+    }
+
+    /**
+     * Add {@code sign} times the contribution to the rows for {@code status}.
+     */
+    public void add(Contribution c, PaymentStatus status, int sign) {
+        jdbcTemplate.execute((Connection connection) -> {
+            PreparedStatement statement = connection.prepareStatement(ADD);
+            Date day = Date.valueOf(c.day());
+            statement.setDate(1, day);
+            statement.setString(2, status.name());
+            statement.setShort(3, c.shard());
+            statement.setLong(4, sign);
+            statement.setLong(5, sign * c.units());
+            statement.setLong(6, sign * c.revenue());
+            statement.setDate(7, day);
+            statement.setString(8, status.name());
+            statement.setShort(9, c.shard());
+            statement.setLong(10, sign);
+            statement.setArray(11, connection.createArrayOf("bigint", c.productIds()));
+            statement.setArray(12, connection.createArrayOf("bigint", signed(c.productUnits(), sign)));
+            statement.setArray(13, connection.createArrayOf("bigint", signed(c.productRevenue(), sign)));
+            return statement;
+        }, PreparedStatement::executeUpdate);
+    }
+
+    /**
+     * Daily totals in {@code [from, to)}, for one payment status or all of them.
+     */
+    public List<SalesPoint> findDaily(LocalDate from, LocalDate to, PaymentStatus status) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT day, payment_status, SUM(order_count), SUM(units), SUM(revenue)
+                FROM sales_daily WHERE day >= ? AND day < ?
+                """);
+        List<Object> args = new ArrayList<>(List.of(Date.valueOf(from), Date.valueOf(to)));
+        if (status != null) {
+            sql.append(" AND payment_status = ?");
+            args.add(status.name());
+        }
+        sql.append(" GROUP BY day, payment_status ORDER BY day, payment_status");
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new SalesPoint(rs.getDate(1).toLocalDate(),
+                PaymentStatus.valueOf(rs.getString(2)), rs.getLong(3), rs.getLong(4), rs.getLong(5)),
+                args.toArray());
+    }
+
+    /**
+     * The best selling products in {@code [from, to)}, without names.
+     */
+    public List<ProductSales> findTopProducts(LocalDate from, LocalDate to, PaymentStatus status,
+            ProductSalesRanking ranking, int limit) {
+        String sql = """
+                SELECT product_id, SUM(order_count) AS order_count, SUM(units) AS units, SUM(revenue) AS revenue
+                FROM product_sales_daily
+                WHERE day >= ? AND day < ? AND payment_status = ?
+                GROUP BY product_id
+                ORDER BY %s DESC, product_id
+                LIMIT ?
+                """.formatted(ranking.getColumn());
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new ProductSales(rs.getLong(1), null, rs.getLong(2),
+                rs.getLong(3), rs.getLong(4)), Date.valueOf(from), Date.valueOf(to), status.name(), limit);
+    }
+
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForList("SELECT 1 FROM sales_daily LIMIT 1").isEmpty();
+    }
+
+    /**
+     * Recompute both tables from the orders, returning the number of daily rows.
+     * Takes an exclusive lock first, so orders placed meanwhile wait and then apply
+     * their increments on top.
+     */
+    public int rebuild() {
+        jdbcTemplate.execute("LOCK TABLE sales_daily, product_sales_daily IN EXCLUSIVE MODE");
+        jdbcTemplate.update("DELETE FROM product_sales_daily");
+        jdbcTemplate.update("DELETE FROM sales_daily");
+        int rows = jdbcTemplate.update(REBUILD_DAILY);
+        jdbcTemplate.update(REBUILD_PRODUCTS);
+        return rows;
+    }
+
+    private static Long[] signed(Long[] values, int sign) {
+        Long[] result = new Long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = sign * values[i];
+        }
+        return result;
+    }
+}
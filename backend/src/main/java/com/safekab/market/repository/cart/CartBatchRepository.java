@@ -0,0 +1,135 @@
+package com.safekab.market.repository.cart;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Set-based cart writes: each statement applies every line of a batch at once,
+ * passed as parallel arrays and expanded with unnest.
+ */
+@Repository
+public class CartBatchRepository {
+
+    // The no-op update makes RETURNING yield the cart a concurrent insert created,
+    // which a plain DO NOTHING would leave invisible to this statement
+    private static final String CREATE_CART = """
+            INSERT INTO carts (user_id) VALUES (?)
+            ON CONFLICT (user_id) DO UPDATE SET user_id = EXCLUDED.user_id
+            RETURNING id
+            """;
+
+    private static final String SET_QUANTITIES = """
+            INSERT INTO cart_products (cart_id, product_id, quantity)
+            SELECT ?, t.product_id, t.quantity FROM unnest(?, ?) AS t(product_id, quantity)
+            ON CONFLICT (cart_id, product_id) DO UPDATE SET quantity = EXCLUDED.quantity
+            """;
+
+    private static final String ADD_QUANTITIES = """
+            INSERT INTO cart_products (cart_id, product_id, quantity)
+            SELECT ?, t.product_id, t.quantity FROM unnest(?, ?) AS t(product_id, quantity)
+            ON CONFLICT (cart_id, product_id) DO UPDATE SET quantity = cart_products.quantity + EXCLUDED.quantity
+            """;
+
+    private static final String UPSERT_LINES = """
+            INSERT INTO cart_products (cart_id, product_id, quantity)
+            SELECT t.cart_id, t.product_id, t.quantity FROM unnest(?, ?, ?) AS t(cart_id, product_id, quantity)
+            ON CONFLICT (cart_id, product_id) DO UPDATE SET quantity = EXCLUDED.quantity
+            """;
+
+    private static final String DELETE_LINES = """
+            DELETE FROM cart_products cp USING unnest(?, ?) AS t(cart_id, product_id)
+            WHERE cp.cart_id = t.cart_id AND cp.product_id = t.product_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CartBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * The user's cart id, creating the cart if there is none.
+     */
+    public long resolveCartId(long userId) {
+        List<Long> existing = jdbcTemplate.queryForList("SELECT id FROM carts WHERE user_id = ?", Long.class, userId);
+        if (!existing.isEmpty()) {
+            return existing.getFirst();
+        }
+        return jdbcTemplate.queryForObject(CREATE_CART, Long.class, userId);
+    }
+
+    public void setQuantities(long cartId, Map<Long, Integer> quantities) {
+        apply(SET_QUANTITIES, cartId, quantities);
+    }
+
+    public void addQuantities(long cartId, Map<Long, Integer> deltas) {
+        apply(ADD_QUANTITIES, cartId, deltas);
+    }
+
+    /**
+     * Drop lines that an operation left at zero or below.
+     */
+    public void deleteDepleted(long cartId) {
+        jdbcTemplate.update("DELETE FROM cart_products WHERE cart_id = ? AND quantity < 1", cartId);
+    }
+
+    public Map<Long, Integer> findLines(long cartId) {
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT product_id, quantity FROM cart_products WHERE cart_id = ? ORDER BY id",
+                (ResultSet rs) -> {
+                    lines.put(rs.getLong(1), rs.getInt(2));
+                }, cartId);
+        return lines;
+    }
+
+    /**
+     * Write absolute quantities for lines across any number of carts.
+     */
+    public void upsertLines(List<Long> cartIds, List<Long> productIds, List<Integer> quantities) {
+        if (cartIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((Connection connection) -> {
+            PreparedStatement statement = connection.prepareStatement(UPSERT_LINES);
+            statement.setArray(1, connection.createArrayOf("bigint", cartIds.toArray()));
+            statement.setArray(2, connection.createArrayOf("bigint", productIds.toArray()));
+            statement.setArray(3, connection.createArrayOf("integer", quantities.toArray()));
+            return statement;
+        }, PreparedStatement::executeUpdate);
+    }
+
+    public void deleteLines(List<Long> cartIds, List<Long> productIds) {
+        if (cartIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((Connection connection) -> {
+            PreparedStatement statement = connection.prepareStatement(DELETE_LINES);
+            statement.setArray(1, connection.createArrayOf("bigint", cartIds.toArray()));
+            statement.setArray(2, connection.createArrayOf("bigint", productIds.toArray()));
+            return statement;
+        }, PreparedStatement::executeUpdate);
+    }
+
+    private void apply(String sql, long cartId, Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((Connection connection) -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            Array productIds = connection.createArrayOf("bigint", quantities.keySet().toArray());
+            Array values = connection.createArrayOf("integer", quantities.values().toArray());
+            statement.setLong(1, cartId);
+            statement.setArray(2, productIds);
+            statement.setArray(3, values);
+            return statement;
+        }, PreparedStatement::executeUpdate);
+    }
+}
@@ -1,10 +1,15 @@
 package com.safekab.market.repository.cart;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.safekab.market.entity.Product;
 import com.safekab.market.entity.cart.Cart;
@@ -17,4 +22,63 @@ public interface CartProductRepository extends JpaRepository<CartProduct, Long>
 
     Optional<CartProduct> findByCartAndProduct(Cart cart, Product product);
 
+    // Cart writes address the cart by its user and resolve in one statement each.
+    // They affect no rows when the user has no cart yet.
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO cart_products (cart_id, product_id, quantity)
+            SELECT c.id, :productId, :delta FROM carts c WHERE c.user_id = :userId
+            ON CONFLICT (cart_id, product_id) DO UPDATE SET quantity = cart_products.quantity + EXCLUDED.quantity
+            """, nativeQuery = true)
+    int addQuantity(@Param("userId") Long userId, @Param("productId") Long productId, @Param("delta") int delta);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            INSERT INTO cart_products (cart_id, product_id, quantity)
+            SELECT c.id, :productId, :quantity FROM carts c WHERE c.user_id = :userId
+            ON CONFLICT (cart_id, product_id) DO UPDATE SET quantity = EXCLUDED.quantity
+            """, nativeQuery = true)
+    int setQuantity(@Param("userId") Long userId, @Param("productId") Long productId,
+            @Param("quantity") int quantity);
+
+    // Never leaves a line below one; a concurrent decrement that got there first
+    // makes this match no row
+    @Modifying
+    @Transactional
+    @Query(value = """
+            UPDATE cart_products cp SET quantity = cp.quantity + :delta
+            FROM carts c WHERE c.id = cp.cart_id AND c.user_id = :userId AND cp.product_id = :productId
+              AND cp.quantity + :delta >= 1
+            """, nativeQuery = true)
+    int updateQuantity(@Param("userId") Long userId, @Param("productId") Long productId, @Param("delta") int delta);
+
+    // Removes the line if applying delta would leave it below one
+    @Modifying
+    @Transactional
+    @Query(value = """
+            DELETE FROM cart_products cp USING carts c
+            WHERE c.id = cp.cart_id AND c.user_id = :userId AND cp.product_id = :productId
+              AND cp.quantity + :delta < 1
+            """, nativeQuery = true)
+    int deleteIfDepleted(@Param("userId") Long userId, @Param("productId") Long productId, @Param("delta") int delta);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            DELETE FROM cart_products cp USING carts c
+            WHERE c.id = cp.cart_id AND c.user_id = :userId AND cp.product_id = :productId
+            """, nativeQuery = true)
+    int deleteByUserIdAndProductId(@Param("userId") Long userId, @Param("productId") Long productId);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            DELETE FROM cart_products cp USING carts c
+            WHERE c.id = cp.cart_id AND c.user_id = :userId AND cp.product_id IN (:productIds)
+            """, nativeQuery = true)
+    int deleteByUserIdAndProductIdIn(@Param("userId") Long userId,
+            @Param("productIds") Collection<Long> productIds);
 }
@@ -2,9 +2,24 @@ package com.safekab.market.repository.cart;
 
 import com.safekab.market.entity.cart.Cart;
 import com.safekab.market.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUser(User user);
+
+    @EntityGraph(attributePaths = { "cartProducts", "cartProducts.product" })
+    Optional<Cart> findWithProductsByUserId(Long userId);
+
+    // Safe against two requests creating the same user's cart at once
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO carts (user_id) VALUES (:userId) ON CONFLICT (user_id) DO NOTHING", nativeQuery = true)
+    int createIfAbsent(@Param("userId") Long userId);
 }
@@ -0,0 +1,123 @@
+package com.safekab.market.repository.location;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.safekab.market.entity.Location;
+
+/**
+ * Finds and stores shipment locations by their normalized address key, backed by
+ * the unique (user_id, address_key) index.
+ */
+@Repository
+public class LocationAddressRepository {
+
+    // The no-op update makes RETURNING yield the row a concurrent insert won with
+    private static final String INSERT = """
+            INSERT INTO locations (user_id, line1, line2, city, postal_code, country, address_key)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (user_id, address_key) DO UPDATE SET address_key = EXCLUDED.address_key
+            RETURNING id
+            """;
+
+    private static final String FIND_KEYED = """
+            SELECT l.id, l.user_id, l.address_key FROM locations l
+            JOIN unnest(?, ?) AS k(user_id, address_key)
+              ON l.user_id = k.user_id AND l.address_key = k.address_key
+            """;
+
+    private static final String REPOINT_ORDERS = """
+            UPDATE orders o SET shipment_location_id = m.keep_id
+            FROM unnest(?, ?) AS m(duplicate_id, keep_id)
+            WHERE o.shipment_location_id = m.duplicate_id
+            """;
+
+    private static final String SET_KEYS = """
+            UPDATE locations l SET address_key = k.address_key
+            FROM unnest(?, ?) AS k(id, address_key)
+            WHERE l.id = k.id
+            """;
+
+    /** A location with its user and address key. */
+    public record KeyedLocation(Long id, Long userId, String addressKey) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LocationAddressRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Id of the user's location with the same address as {@code address}, inserting
+     * it first if there is none.
+     */
+    public Long findOrInsert(Long userId, Location address) {
+        String key = Location.addressKey(address.getLine1(), address.getLine2(), address.getCity(),
+                address.getPostalCode(), address.getCountry());
+        Optional<Long> existing = jdbcTemplate.queryForList(
+                "SELECT id FROM locations WHERE user_id = ? AND address_key = ?", Long.class, userId, key)
+                .stream().findFirst();
+        return existing.orElseGet(() -> jdbcTemplate.queryForObject(INSERT, Long.class, userId,
+                address.getLine1(), address.getLine2(), address.getCity(), address.getPostalCode(),
+                address.getCountry(), key));
+    }
+
+    /**
+     * The next locations without an address key, in id order after {@code afterId},
+     * with the key they should have.
+     */
+    public List<KeyedLocation> findUnkeyed(long afterId, int limit) {
+        return jdbcTemplate.query("""
+                SELECT id, user_id, line1, line2, city, postal_code, country FROM locations
+                WHERE address_key IS NULL AND id > ? ORDER BY id LIMIT ?
+                """, (rs, rowNum) -> new KeyedLocation(rs.getLong("id"), rs.getLong("user_id"),
+                Location.addressKey(rs.getString("line1"), rs.getString("line2"), rs.getString("city"),
+                        rs.getString("postal_code"), rs.getString("country"))),
+                afterId, limit);
+    }
+
+    /**
+     * Keyed locations matching the given (user, key) pairs.
+     */
+    public List<KeyedLocation> findKeyed(List<Long> userIds, List<String> keys) {
+        return jdbcTemplate.query(FIND_KEYED, statement -> {
+            bigints(statement, 1, userIds);
+            statement.setArray(2, statement.getConnection().createArrayOf("text", keys.toArray()));
+        }, (rs, rowNum) -> new KeyedLocation(rs.getLong(1), rs.getLong(2), rs.getString(3)));
+    }
+
+    /**
+     * Point orders shipped to a duplicate location at the location kept in its place,
+     * then delete the duplicates.
+     */
+    public void merge(Map<Long, Long> keepByDuplicate) {
+        if (keepByDuplicate.isEmpty()) {
+            return;
+        }
+        List<Long> duplicates = List.copyOf(keepByDuplicate.keySet());
+        List<Long> kept = duplicates.stream().map(keepByDuplicate::get).toList();
+        jdbcTemplate.update(REPOINT_ORDERS, statement -> {
+            bigints(statement, 1, duplicates);
+            bigints(statement, 2, kept);
+        });
+        jdbcTemplate.update("DELETE FROM locations WHERE id = ANY (?)", statement -> bigints(statement, 1, duplicates));
+    }
+
+    public void setKeys(List<Long> ids, List<String> keys) {
+        jdbcTemplate.update(SET_KEYS, statement -> {
+            bigints(statement, 1, ids);
+            statement.setArray(2, statement.getConnection().createArrayOf("text", keys.toArray()));
+        });
+    }
+
+    private static void bigints(PreparedStatement statement, int index, List<Long> values) throws SQLException {
+        statement.setArray(index, statement.getConnection().createArrayOf("bigint", values.toArray()));
+    }
+}
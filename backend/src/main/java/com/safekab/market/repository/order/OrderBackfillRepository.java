@@ -0,0 +1,78 @@
+package com.safekab.market.repository.order;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Set-based backfill of price snapshots and stored totals for orders placed
+ * before they existed. Each statement covers a whole batch of orders.
+ */
+@Repository
+public class OrderBackfillRepository {
+
+    // Historic prices were never recorded, so lines take the product's current price.
+    // Rounding matches Product.vatAmount.
+    private static final String SNAPSHOT_LINES = """
+            UPDATE order_product op
+            SET unit_net_price = p.net_price,
+                vat_rate = p.vat_rate,
+                unit_price = p.net_price + (p.vat_rate * p.net_price + 50) / 100
+            FROM products p
+            WHERE p.id = op.product_id AND op.unit_price IS NULL AND op.order_id = ANY (?)
+            """;
+
+    private static final String STORE_TOTALS = """
+            UPDATE orders o
+            SET subtotal_net = t.net,
+                vat_total = t.gross - t.net,
+                total_price = t.gross + o.shipping_cost
+            FROM (
+                SELECT o2.id,
+                       COALESCE(SUM(op.unit_net_price * op.quantity), 0) AS net,
+                       COALESCE(SUM(op.unit_price * op.quantity), 0) AS gross
+                FROM orders o2 LEFT JOIN order_product op ON op.order_id = o2.id
+                WHERE o2.id = ANY (?)
+                GROUP BY o2.id
+                HAVING bool_and(op.id IS NULL OR op.unit_price IS NOT NULL)
+            ) t
+            WHERE o.id = t.id AND o.total_price IS NULL
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderBackfillRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * The next orders without stored totals, in id order after {@code afterId}.
+     */
+    public List<Long> findIdsWithoutTotals(long afterId, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM orders WHERE total_price IS NULL AND id > ? ORDER BY id LIMIT ?",
+                Long.class, afterId, limit);
+    }
+
+    public int snapshotLinePrices(List<Long> orderIds) {
+        return update(SNAPSHOT_LINES, orderIds);
+    }
+
+    /**
+     * Store totals for orders whose lines all have snapshots; returns how many were set.
+     */
+    public int storeTotals(List<Long> orderIds) {
+        return update(STORE_TOTALS, orderIds);
+    }
+
+    private int update(String sql, List<Long> orderIds) {
+        return jdbcTemplate.execute((Connection connection) -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("bigint", orderIds.toArray()));
+            return statement;
+        }, PreparedStatement::executeUpdate);
+    }
+}
@@ -0,0 +1,70 @@
+package com.safekab.market.repository.order;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import com.safekab.market.dto.order.AdminOrderFilter;
+import com.safekab.market.dto.order.OrderExportRow;
+import com.safekab.market.entity.PaymentStatus;
+import com.safekab.market.entity.TrackingStatus;
+
+/**
+ * Reads orders for export through a server-side cursor. Postgres only streams
+ * with a fetch size when autocommit is off, so callers must hold a transaction.
+ */
+@Repository
+public class OrderExportRepository {
+
+    private static final int FETCH_SIZE = 500;
+
+    private static final String SELECT = """
+            SELECT o.id, o.order_date, o.user_id, u.email, o.payment_status, o.tracking_status,
+                   (SELECT SUM(op.quantity)::integer FROM order_product op WHERE op.order_id = o.id) AS item_count,
+                   o.subtotal_net, o.vat_total, o.shipping_cost, o.total_price, o.promotion_code
+            FROM orders o JOIN users u ON u.id = o.user_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderExportRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * Pass every matching order to {@code sink}, oldest first, holding one fetch
+     * of rows in memory at a time.
+     */
+    public void forEach(AdminOrderFilter filter, Consumer<OrderExportRow> sink) {
+        StringBuilder sql = new StringBuilder(SELECT).append(" WHERE TRUE");
+        List<Object> args = new ArrayList<>();
+        OrderFilterSql.appendConditions(sql, filter, args);
+        sql.append(" ORDER BY o.order_date, o.id");
+        jdbcTemplate.query(sql.toString(), (RowCallbackHandler) rs -> sink.accept(toRow(rs)), args.toArray());
+    }
+
+    private static OrderExportRow toRow(ResultSet rs) throws SQLException {
+        return new OrderExportRow(
+                rs.getLong("id"),
+                rs.getTimestamp("order_date").toLocalDateTime(),
+                rs.getLong("user_id"),
+                rs.getString("email"),
+                PaymentStatus.valueOf(rs.getString("payment_status")),
+                TrackingStatus.valueOf(rs.getString("tracking_status")),
+                rs.getObject("item_count", Integer.class),
+                rs.getObject("subtotal_net", Long.class),
+                rs.getObject("vat_total", Long.class),
+                rs.getObject("shipping_cost", Long.class),
+                rs.getObject("total_price", Long.class),
+                rs.getString("promotion_code"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.safekab.market.repository.order;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import com.safekab.market.dto.order.AdminOrderFilter;
+
+/**
+ * SQL conditions for an {@link AdminOrderFilter} on the {@code orders} table
+ * aliased as {@code o}.
+ */
+final class OrderFilterSql {
+
+    private OrderFilterSql() {
+    }
+
+    /**
+     * Append one {@code AND} condition per set filter field, adding its bind values to {@code args}.
+     */
+    static void appendConditions(StringBuilder sql, AdminOrderFilter filter, List<Object> args) {
+        if (filter.paymentStatus() != null) {
+            sql.append(" AND o.payment_status = ?");
+            args.add(filter.paymentStatus().name());
+        }
+        if (filter.trackingStatus() != null) {
+            sql.append(" AND o.tracking_status = ?");
+            args.add(filter.trackingStatus().name());
+        }
+        if (filter.from() != null) {
+            sql.append(" AND o.order_date >= ?");
+            args.add(Timestamp.valueOf(filter.from()));
+        }
+        if (filter.to() != null) {
+            sql.append(" AND o.order_date < ?");
+            args.add(Timestamp.valueOf(filter.to()));
+        }
+        if (filter.userId() != null) {
+            sql.append(" AND o.user_id = ?");
+            args.add(filter.userId());
+        }
+        if (filter.minTotal() != null) {
+            sql.append(" AND o.total_price >= ?");
+            args.add(filter.minTotal());
+        }
+    }
+}
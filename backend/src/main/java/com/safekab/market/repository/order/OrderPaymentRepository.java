@@ -0,0 +1,47 @@
+package com.safekab.market.repository.order;
+
+import java.util.Optional;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.safekab.market.entity.PaymentStatus;
+
+/**
+ * Compare-and-set payment transitions. A transition that has already happened
+ * matches no row, so a repeated payment event costs one indexed UPDATE.
+ *
+ * Only {@code OrderService} should call these: it moves the order's sales rollups
+ * (see {@code SalesRollupService}) in the same transaction as each transition.
+ */
+@Repository
+public class OrderPaymentRepository {
+
+    // Refunded orders stay refunded when a stale completion event arrives
+    private static final String MARK_PAID = """
+            WITH locked AS (
+                SELECT id, payment_status FROM orders
+                WHERE id = ? AND payment_status IN ('UNPAID', 'FAILED')
+                FOR UPDATE
+            )
+            UPDATE orders o SET payment_status = 'PAID'
+            FROM locked l
+            WHERE o.id = l.id
+            RETURNING l.payment_status
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderPaymentRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Mark an unpaid or failed order paid. Returns its previous status, or empty
+     * when the order does not exist or was not awaiting payment.
+     */
+    public Optional<PaymentStatus> markPaid(Long orderId) {
+        return jdbcTemplate.query(MARK_PAID, (rs, rowNum) -> PaymentStatus.valueOf(rs.getString(1)), orderId)
+                .stream().findFirst();
+    }
+}
@@ -0,0 +1,90 @@
+package com.safekab.market.repository.order;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.safekab.market.dto.order.AdminOrderFilter;
+import com.safekab.market.entity.TrackingStatus;
+
+/**
+ * Set-based tracking status changes. The selected orders are locked in id
+ * order and every allowed move is applied in the same statement, which reports
+ * each locked order's previous status and whether it moved.
+ */
+@Repository
+public class OrderTrackingRepository {
+
+    private static final String MOVE = """
+            WITH locked AS (%s),
+            moved AS (
+                UPDATE orders o SET tracking_status = ?
+                FROM locked l
+                WHERE o.id = l.id AND l.tracking_status = ANY (?)
+                RETURNING o.id
+            )
+            SELECT l.id, l.tracking_status, m.id IS NOT NULL AS moved
+            FROM locked l LEFT JOIN moved m ON m.id = l.id
+            ORDER BY l.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderTrackingRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public record TrackingMove(long orderId, TrackingStatus previousStatus, boolean moved) {
+    }
+
+    /**
+     * Move the given orders that are currently in one of {@code allowedFrom}.
+     */
+    public List<TrackingMove> moveByIds(Collection<Long> orderIds, TrackingStatus to,
+            Collection<TrackingStatus> allowedFrom) {
+        String locked = "SELECT id, tracking_status FROM orders WHERE id = ANY (?) ORDER BY id FOR UPDATE";
+        List<Object> args = new ArrayList<>();
+        args.add(orderIds.toArray(Long[]::new));
+        return move(locked, args, to, allowedFrom);
+    }
+
+    /**
+     * Move up to {@code limit} orders matching the filter that are currently in one
+     * of {@code allowedFrom}; every matching order is locked and reported.
+     */
+    public List<TrackingMove> moveByFilter(AdminOrderFilter filter, int limit, TrackingStatus to,
+            Collection<TrackingStatus> allowedFrom) {
+        StringBuilder locked = new StringBuilder("SELECT o.id, o.tracking_status FROM orders o WHERE TRUE");
+        List<Object> args = new ArrayList<>();
+        OrderFilterSql.appendConditions(locked, filter, args);
+        locked.append(" ORDER BY o.id LIMIT ? FOR UPDATE");
+        args.add(limit);
+        return move(locked.toString(), args, to, allowedFrom);
+    }
+
+    private List<TrackingMove> move(String locked, List<Object> args, TrackingStatus to,
+            Collection<TrackingStatus> allowedFrom) {
+        args.add(to.name());
+        args.add(allowedFrom.stream().map(Enum::name).toArray(String[]::new));
+        return jdbcTemplate.query((Connection connection) -> {
+            PreparedStatement statement = connection.prepareStatement(MOVE.formatted(locked));
+            for (int i = 0; i < args.size(); i++) {
+                Object arg = args.get(i);
+                if (arg instanceof Long[] ids) {
+                    statement.setArray(i + 1, connection.createArrayOf("bigint", ids));
+                } else if (arg instanceof String[] names) {
+                    statement.setArray(i + 1, connection.createArrayOf("varchar", names));
+                } else {
+                    statement.setObject(i + 1, arg);
+                }
+            }
+            return statement;
+        }, (rs, rowNum) -> new TrackingMove(rs.getLong(1), TrackingStatus.valueOf(rs.getString(2)),
+                rs.getBoolean(3)));
+    }
+}
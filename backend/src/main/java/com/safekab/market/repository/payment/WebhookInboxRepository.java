@@ -0,0 +1,139 @@
+package com.safekab.market.repository.payment;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.safekab.market.dto.payment.WebhookEventResponse;
+import com.safekab.market.service.payment.WebhookEvent;
+
+/**
+ * Storage for the webhook inbox. Workers claim events with SKIP LOCKED, so any
+ * number of workers and nodes can poll the table without handing out an event
+ * twice.
+ */
+@Repository
+public class WebhookInboxRepository {
+
+    private static final String INSERT = """
+            INSERT INTO webhook_inbox (event_id, type, object_id, order_id, payload, status, attempts,
+                                       next_attempt_at, received_at)
+            VALUES (?, ?, ?, ?, ?, 'PENDING', 0, LOCALTIMESTAMP, LOCALTIMESTAMP)
+            ON CONFLICT DO NOTHING
+            """;
+
+    // Due events, plus events whose worker's claim lapsed. An event is only handed
+    // out once every earlier event for its order has been applied or given up on,
+    // so an order's events are applied in arrival order on any node.
+    private static final String CLAIM = """
+            UPDATE webhook_inbox w
+            SET status = 'PROCESSING', attempts = w.attempts + 1,
+                locked_until = LOCALTIMESTAMP + ? * INTERVAL '1 millisecond'
+            WHERE w.id IN (
+                SELECT e.id FROM webhook_inbox e
+                WHERE (e.status = 'PENDING' AND e.next_attempt_at <= LOCALTIMESTAMP
+                       OR e.status = 'PROCESSING' AND e.locked_until < LOCALTIMESTAMP)
+                  AND NOT EXISTS (
+                      SELECT 1 FROM webhook_inbox p
+                      WHERE p.order_id = e.order_id AND p.id < e.id AND p.status IN ('PENDING', 'PROCESSING'))
+                ORDER BY e.id
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED)
+            RETURNING w.id, w.event_id, w.type, w.object_id, w.order_id, w.payload, w.attempts
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public WebhookInboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * An event handed to a worker, with the attempt it is on (from 1).
+     */
+    public record ClaimedEvent(long id, WebhookEvent event, int attempt) {
+    }
+
+    /**
+     * Store an event unless one with the same event id, or the same type and
+     * object, is already stored. Returns whether it was new.
+     */
+    public boolean insert(WebhookEvent event) {
+        return jdbcTemplate.update(INSERT, event.eventId(), event.type(), event.objectId(), event.orderId(),
+                event.payload()) == 1;
+    }
+
+    /**
+     * Claim up to {@code limit} events for {@code leaseMs}, oldest first.
+     */
+    public List<ClaimedEvent> claim(int limit, long leaseMs) {
+        List<ClaimedEvent> claimed = jdbcTemplate.query(CLAIM, (rs, rowNum) -> new ClaimedEvent(
+                rs.getLong("id"),
+                new WebhookEvent(rs.getString("event_id"), rs.getString("type"), rs.getString("object_id"),
+                        rs.getObject("order_id", Long.class), rs.getString("payload")),
+                rs.getInt("attempts")), leaseMs, limit);
+        return claimed.stream().sorted(Comparator.comparingLong(ClaimedEvent::id)).toList();
+    }
+
+    public void markDone(long id) {
+        jdbcTemplate.update("""
+                UPDATE webhook_inbox SET status = 'DONE', processed_at = LOCALTIMESTAMP, locked_until = NULL, last_error = NULL
+                WHERE id = ? AND status = 'PROCESSING'
+                """, id);
+    }
+
+    public void reschedule(long id, String error, long delayMs) {
+        jdbcTemplate.update("""
+                UPDATE webhook_inbox SET status = 'PENDING', locked_until = NULL, last_error = ?,
+                    next_attempt_at = LOCALTIMESTAMP + ? * INTERVAL '1 millisecond'
+                WHERE id = ? AND status = 'PROCESSING'
+                """, error, delayMs, id);
+    }
+
+    public void markDead(long id, String error) {
+        jdbcTemplate.update("""
+                UPDATE webhook_inbox SET status = 'DEAD', locked_until = NULL, last_error = ?
+                WHERE id = ? AND status = 'PROCESSING'
+                """, error, id);
+    }
+
+    /**
+     * Put a dead event back in the queue with a fresh set of attempts. Returns
+     * false when there is no dead event with that id.
+     */
+    public boolean requeue(long id) {
+        return jdbcTemplate.update("""
+                UPDATE webhook_inbox SET status = 'PENDING', attempts = 0, next_attempt_at = LOCALTIMESTAMP
+                WHERE id = ? AND status = 'DEAD'
+                """, id) == 1;
+    }
+
+    public List<WebhookEventResponse> findDead(int limit) {
+        return jdbcTemplate.query("""
+                SELECT id, event_id, type, order_id, attempts, last_error, received_at
+                FROM webhook_inbox WHERE status = 'DEAD' ORDER BY id LIMIT ?
+                """, (rs, rowNum) -> new WebhookEventResponse(
+                rs.getLong("id"),
+                rs.getString("event_id"),
+                rs.getString("type"),
+                rs.getObject("order_id", Long.class),
+                rs.getInt("attempts"),
+                rs.getString("last_error"),
+                rs.getTimestamp("received_at").toLocalDateTime()), limit);
+    }
+
+    /**
+     * Delete up to {@code limit} events applied before {@code before}. Their event
+     * ids stop being deduplicated, so keep them longer than the provider retries.
+     */
+    public int deleteDone(LocalDateTime before, int limit) {
+        return jdbcTemplate.update("""
+                DELETE FROM webhook_inbox WHERE id IN (
+                    SELECT id FROM webhook_inbox WHERE status = 'DONE' AND processed_at < ? LIMIT ?)
+                """, Timestamp.valueOf(before), limit);
+    }
+}
@@ -1,5 +1,10 @@
 package com.safekab.market.service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.safekab.market.entity.Config;
@@ -8,18 +13,35 @@ import com.safekab.market.repository.ConfigRepository;
 @Service
 public class ConfigService {
     private final ConfigRepository configRepository;
+    private final Duration cacheTtl;
+    private final AtomicReference<CachedConfig> cache = new AtomicReference<>();
+
+    // Config is read on every order and rarely written, so it is cached with a short
+    // TTL; the TTL bounds staleness on nodes that did not handle the write
+    private record CachedConfig(Config config, Instant loadedAt) {
+    }
 
-    public ConfigService(ConfigRepository configRepository) {
+    public ConfigService(ConfigRepository configRepository,
+            @Value("${app.config.cache-ttl:60000}") long cacheTtlMs) {
         this.configRepository = configRepository;
+        this.cacheTtl = Duration.ofMillis(cacheTtlMs);
     }
 
     @Transactional(readOnly = true)
     public Config getConfig() {
-        return configRepository.findAll().stream().findFirst().orElse(null);
+        CachedConfig cached = cache.get();
+        if (cached != null && cached.loadedAt().plus(cacheTtl).isAfter(Instant.now())) {
+            return cached.config();
+        }
+        Config config = configRepository.findAll().stream().findFirst().orElse(null);
+        cache.set(new CachedConfig(config, Instant.now()));
+        return config;
     }
 
     @Transactional
     public Config saveConfig(Config config) {
-        return configRepository.save(config);
+        Config saved = configRepository.save(config);
+        cache.set(null);
+        return saved;
     }
 }
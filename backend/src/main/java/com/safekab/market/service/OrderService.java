@@ -1,28 +1,64 @@
 package com.safekab.market.service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.safekab.market.dto.order.AdminOrderFilter;
+import com.safekab.market.dto.order.AdminOrderPageResponse;
+import com.safekab.market.dto.order.AdminOrderResponse;
+import com.safekab.market.dto.order.BulkTrackingUpdateRequest;
+import com.safekab.market.dto.order.BulkTrackingUpdateResponse;
+import com.safekab.market.dto.order.BulkTrackingUpdateResponse.Outcome;
+import com.safekab.market.dto.order.CreateOrderItem;
 import com.safekab.market.dto.order.CreateOrderRequest;
+import com.safekab.market.entity.Config;
 import com.safekab.market.entity.Order;
 import com.safekab.market.entity.PaymentStatus;
+import com.safekab.market.entity.Product;
 import com.safekab.market.entity.TrackingStatus;
 import com.safekab.market.entity.User;
 import com.safekab.market.exception.ApiException;
 import com.safekab.market.repository.OrderRepository;
 import com.safekab.market.repository.ProductRepository;
 import com.safekab.market.repository.UserRepository;
-import com.safekab.market.repository.ConfigRepository;
+import com.safekab.market.repository.order.OrderPaymentRepository;
+import com.safekab.market.repository.order.OrderTrackingRepository;
+import com.safekab.market.repository.order.OrderTrackingRepository.TrackingMove;
+import com.safekab.market.service.analytics.SalesRollupService;
+import com.safekab.market.service.flashsale.FlashSaleService;
+import com.safekab.market.service.payment.CheckoutSessionCache;
+import com.safekab.market.service.stock.StockReservationService;
+
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
 
 @Service
 public class OrderService {
+    private static final int MAX_BULK_ORDERS = 1000;
+
     @Autowired
     private OrderRepository orderRepository;
     @Autowired
@@ -30,14 +66,26 @@ public class OrderService {
     @Autowired
     private UserRepository userRepository;
     @Autowired
-    private ConfigRepository configRepository;
+    private ConfigService configService;
+    @Autowired
+    private StockReservationService stockReservationService;
+    @Autowired
+    private FlashSaleService flashSaleService;
+    @Autowired
+    private OrderTrackingRepository orderTrackingRepository;
+    @Autowired
+    private SalesRollupService salesRollupService;
+    @Autowired
+    private OrderPaymentRepository orderPaymentRepository;
+    @Autowired
+    private CheckoutSessionCache checkoutSessionCache;
 
     /**
      * Get all orders for a user.
      */
     public Page<Order> findAllByUserId(Long userId, int page, int size) {
         Pageable pageable = PageRequest.of(page, Math.min(10, size), Sort.by("id").descending());
-        return orderRepository.findAllByUserId(userId, pageable);
+        return loadPage(orderRepository.findIdsByUserId(userId, pageable), orderRepository::findWithItemsByIdIn);
     }
 
     /**
@@ -46,7 +94,105 @@ public class OrderService {
     public Page<Order> findAllOrdersForAdmin(PaymentStatus paymentStatus, TrackingStatus trackingStatus, int page,
             int size) {
         Pageable pageable = PageRequest.of(page, Math.min(50, size), Sort.by("orderDate").descending());
-        return orderRepository.findAllByPaymentStatusAndTrackingStatus(paymentStatus, trackingStatus, pageable);
+        return loadPage(orderRepository.findIdsByPaymentStatusAndTrackingStatus(paymentStatus, trackingStatus, pageable),
+                orderRepository::findWithDetailsByIdIn);
+    }
+
+    /**
+     * One page of the filtered admin order listing, newest first. Uses keyset
+     * pagination on (orderDate, id) and never counts, so deep pages cost the same
+     * as the first one.
+     */
+    public AdminOrderPageResponse listOrdersForAdmin(AdminOrderFilter filter, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(100, limit));
+        AdminOrderCursor after = cursor != null && !cursor.isEmpty() ? AdminOrderCursor.decode(cursor) : null;
+        Sort order = Sort.by(Sort.Direction.DESC, "orderDate").and(Sort.by(Sort.Direction.DESC, "id"));
+
+        List<Order> page = orderRepository.findBy(adminListingSpecification(filter, after),
+                query -> query.sortBy(order).limit(pageSize + 1).all());
+
+        boolean hasNext = page.size() > pageSize;
+        List<Order> orders = hasNext ? page.subList(0, pageSize) : page;
+        if (orders.isEmpty()) {
+            return new AdminOrderPageResponse(List.of(), null);
+        }
+        Map<Long, Order> details = orderRepository.findWithDetailsByIdIn(orders.stream().map(Order::getId).toList())
+                .stream().collect(Collectors.toMap(Order::getId, Function.identity()));
+        List<AdminOrderResponse> items = orders.stream()
+                .map(o -> new AdminOrderResponse(details.get(o.getId())))
+                .toList();
+        String nextCursor = hasNext ? AdminOrderCursor.of(orders.getLast()).encode() : null;
+        return new AdminOrderPageResponse(items, nextCursor);
+    }
+
+    private static Specification<Order> adminListingSpecification(AdminOrderFilter filter, AdminOrderCursor after) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.paymentStatus() != null) {
+                predicates.add(cb.equal(root.get("paymentStatus"), filter.paymentStatus()));
+            }
+            if (filter.trackingStatus() != null) {
+                predicates.add(cb.equal(root.get("trackingStatus"), filter.trackingStatus()));
+            }
+            if (filter.from() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("orderDate"), filter.from()));
+            }
+            if (filter.to() != null) {
+                predicates.add(cb.lessThan(root.get("orderDate"), filter.to()));
+            }
+            if (filter.userId() != null) {
+                predicates.add(cb.equal(root.get("user").get("id"), filter.userId()));
+            }
+            if (filter.minTotal() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("totalPrice"), filter.minTotal()));
+            }
+            if (after != null) {
+                Path<LocalDateTime> orderDate = root.get("orderDate");
+                predicates.add(cb.or(cb.lessThan(orderDate, after.orderDate()),
+                        cb.and(cb.equal(orderDate, after.orderDate()), cb.lessThan(root.get("id"), after.id()))));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * Position of the last order of a page, serialized as an opaque base64url token.
+     */
+    private record AdminOrderCursor(LocalDateTime orderDate, Long id) {
+
+        static AdminOrderCursor of(Order order) {
+            return new AdminOrderCursor(order.getOrderDate(), order.getId());
+        }
+
+        String encode() {
+            String raw = id + ":" + orderDate;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static AdminOrderCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] parts = raw.split(":", 2);
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Malformed cursor");
+                }
+                return new AdminOrderCursor(LocalDateTime.parse(parts[1]), Long.valueOf(parts[0]));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new ApiException("Invalid cursor", HttpStatus.BAD_REQUEST);
+            }
+        }
+    }
+
+    /**
+     * Replace a page of ids with the fully fetched orders, keeping page order.
+     */
+    private Page<Order> loadPage(Page<Long> ids, Function<Collection<Long>, List<Order>> loader) {
+        if (ids.isEmpty()) {
+            return ids.map(id -> null);
+        }
+        Map<Long, Order> orders = loader.apply(ids.getContent()).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        return ids.map(orders::get);
     }
 
     /**
@@ -60,7 +206,7 @@ public class OrderService {
      * Find an order by its ID.
      */
     public Optional<Order> findById(Long id, Long userId) {
-        return orderRepository.findByIdAndUserId(id, userId);
+        return orderRepository.findWithItemsByIdAndUserId(id, userId);
     }
 
     /**
@@ -70,42 +216,127 @@ public class OrderService {
         return orderRepository.save(order);
     }
 
+    /**
+     * Mark an order paid if it is still awaiting payment, moving its sales rollups.
+     * Returns the order only when this call paid it; a repeated payment event
+     * stops after one UPDATE.
+     */
+    @Transactional
+    public Optional<Order> markPaid(Long orderId) {
+        return orderPaymentRepository.markPaid(orderId).map(previous -> {
+            checkoutSessionCache.evict(orderId);
+            Order order = orderRepository.findById(orderId).orElseThrow();
+            salesRollupService.moveOrder(order, previous, PaymentStatus.PAID);
+            return order;
+        });
+    }
+
     /**
      * Update order status (Admin only).
      */
     public Order updateOrderStatus(Long orderId, TrackingStatus trackingStatus) {
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithDetailsById(orderId)
                 .orElseThrow(() -> new ApiException("Order not found", HttpStatus.NOT_FOUND));
         order.setTrackingStatus(trackingStatus);
         return orderRepository.save(order);
     }
 
     /**
-     * Create a new order for the given user and request.
+     * Move many orders to a new tracking status in one statement (Admin only).
+     * Orders are only moved forward (see {@link TrackingStatus#canMoveTo}); the
+     * rest are reported with the reason they were left alone.
+     */
+    @Transactional
+    public BulkTrackingUpdateResponse updateTrackingStatuses(BulkTrackingUpdateRequest request) {
+        boolean byIds = request.getOrderIds() != null && !request.getOrderIds().isEmpty();
+        if (byIds == (request.getFilter() != null)) {
+            throw new ApiException("Provide either order_ids or filter", HttpStatus.BAD_REQUEST);
+        }
+        TrackingStatus target = request.getTrackingStatus();
+        List<TrackingStatus> allowedFrom = Arrays.stream(TrackingStatus.values())
+                .filter(status -> status.canMoveTo(target))
+                .toList();
+
+        List<TrackingMove> moves;
+        Set<Long> requested = new LinkedHashSet<>();
+        if (byIds) {
+            requested.addAll(request.getOrderIds());
+            moves = orderTrackingRepository.moveByIds(requested, target, allowedFrom);
+        } else {
+            moves = orderTrackingRepository.moveByFilter(request.getFilter().toFilter(), MAX_BULK_ORDERS + 1,
+                    target, allowedFrom);
+            if (moves.size() > MAX_BULK_ORDERS) {
+                // Rolls the update back
+                throw new ApiException("Filter matches more than " + MAX_BULK_ORDERS + " orders",
+                        HttpStatus.BAD_REQUEST);
+            }
+        }
+
+        List<BulkTrackingUpdateResponse.Result> results = new ArrayList<>();
+        int updated = 0;
+        for (TrackingMove move : moves) {
+            requested.remove(move.orderId());
+            Outcome outcome = move.moved() ? Outcome.UPDATED
+                    : move.previousStatus() == target ? Outcome.UNCHANGED : Outcome.INVALID_TRANSITION;
+            updated += move.moved() ? 1 : 0;
+            results.add(new BulkTrackingUpdateResponse.Result(move.orderId(), outcome, move.previousStatus()));
+        }
+        requested.forEach(id -> results.add(new BulkTrackingUpdateResponse.Result(id, Outcome.NOT_FOUND, null)));
+        return new BulkTrackingUpdateResponse(updated, results);
+    }
+
+    /**
+     * Create a new order for the given user and request. Products are loaded in one
+     * query and order lines are inserted as a single JDBC batch on commit.
      */
+    @Transactional
     public Order createOrder(Long userId, CreateOrderRequest createOrderRequest) {
+        if (createOrderRequest.getItems() == null || createOrderRequest.getItems().isEmpty()) {
+            throw new ApiException("Order must contain at least one item", HttpStatus.BAD_REQUEST);
+        }
+        // Merge duplicate lines so each product appears once with the summed quantity
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CreateOrderItem item : createOrderRequest.getItems()) {
+            if (item.getProductId() == null || item.getQuantity() == null || item.getQuantity() < 1) {
+                throw new ApiException("Invalid order item", HttpStatus.BAD_REQUEST);
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+
+        // Flash sale products are only sold to buyers the queue has admitted, checked
+        // before touching the database so the rest are turned away cheaply
+        quantities.keySet().stream()
+                .filter(flashSaleService::isFlashSale)
+                .forEach(productId -> flashSaleService.consumeAdmission(userId, productId));
+
+        Map<Long, Product> products = productRepository.findAllWithImagesByIdIn(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Long> missing = quantities.keySet().stream().filter(id -> !products.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            throw new ApiException("Products not found: " + missing, HttpStatus.NOT_FOUND);
+        }
+
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ApiException("User not found", HttpStatus.NOT_FOUND));
         Order order = new Order();
-        createOrderRequest.getItems().forEach(item -> {
-            productRepository.findById(item.getProductId()).ifPresent(product -> {
-                order.addOrderProduct(product, item.getQuantity());
-            });
-        });
+        quantities.forEach((productId, quantity) -> order.addOrderProduct(products.get(productId), quantity));
         order.setUser(user);
         order.setPaymentStatus(PaymentStatus.UNPAID);
         order.setTrackingStatus(TrackingStatus.NOT_SHIPPED);
         if (createOrderRequest.getPromotionCode() != null) {
             order.setPromotionCode(createOrderRequest.getPromotionCode());
         }
-        
+
         // Set shipping cost from configuration
-        configRepository.findAll().stream().findFirst().ifPresent(config -> {
-            if (config.getShippingCost() != null) {
-                order.setShippingCost(config.getShippingCost());
-            }
-        });
-        
-        return orderRepository.save(order);
+        Config config = configService.getConfig();
+        if (config != null && config.getShippingCost() != null) {
+            order.setShippingCost(config.getShippingCost());
+        }
+        order.updateTotals();
+
+        stockReservationService.reserve(order, quantities);
+        Order saved = orderRepository.save(order);
+        salesRollupService.recordOrder(saved);
+        return saved;
     }
 }
@@ -1,23 +1,38 @@
 package com.safekab.market.service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
-import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.safekab.market.dto.product.NewProductRequest;
+import com.safekab.market.dto.product.ProductFilter;
 import com.safekab.market.dto.product.ProductMediaRequest;
+import com.safekab.market.dto.product.ProductPageResponse;
+import com.safekab.market.dto.product.ProductResponseItem;
+import com.safekab.market.dto.product.ProductSort;
 import com.safekab.market.dto.product.UpdateProductRequest;
 import com.safekab.market.entity.Product;
 import com.safekab.market.entity.ProductImage;
 import com.safekab.market.exception.ApiException;
 import com.safekab.market.repository.ProductImageRepository;
 import com.safekab.market.repository.ProductRepository;
+import com.safekab.market.service.catalog.CatalogService;
+import com.safekab.market.service.stock.StockReservationService;
 
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import jakarta.transaction.Transactional;
 
 @Service
@@ -29,18 +44,43 @@ public class ProductService {
     @Autowired
     private ProductImageRepository productImageRepository;
 
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
-    }
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    /**
+     * One page of the filtered product listing, using keyset pagination on
+     * (sort key, id) so deep pages cost the same as the first one.
+     */
+    public ProductPageResponse listProducts(ProductSort sort, ProductFilter filter, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(100, limit));
+        ProductCursor after = cursor != null && !cursor.isEmpty() ? ProductCursor.decode(cursor, sort) : null;
+        Sort.Direction direction = sort.isAscending() ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Sort order = sort == ProductSort.NEWEST
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, sort.getProperty()).and(Sort.by(direction, "id"));
 
-    public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+        List<Product> page = productRepository.findBy(listingSpecification(sort, filter, after),
+                query -> query.sortBy(order).limit(pageSize + 1).all());
+
+        boolean hasNext = page.size() > pageSize;
+        List<Product> products = hasNext ? page.subList(0, pageSize) : page;
+        // Items come pre-mapped from the catalog snapshot, avoiding a lazy image load per product
+        List<ProductResponseItem> items = products.stream()
+                .map(product -> catalogService.getProduct(product.getId())
+                        .orElseGet(() -> new ProductResponseItem(product)))
+                .toList();
+        String nextCursor = hasNext ? ProductCursor.of(sort, products.getLast()).encode() : null;
+        return new ProductPageResponse(items, nextCursor);
     }
 
     public void createProduct(NewProductRequest productRequest) {
         Product product = new Product();
         product.setName(productRequest.getName());
         product.setStock(productRequest.getStock());
+        product.setFlashSaleRate(productRequest.getFlashSaleRate());
         product.setDescription(productRequest.getDescription());
         product.setNetPrice(productRequest.getNetPrice());
         product.setVatRate(productRequest.getVatRate());
@@ -63,6 +103,7 @@ public class ProductService {
                 }
                 productImageRepository.saveAll(images);
             }
+            refreshCatalogAfterCommit(savedProduct.getId());
 
         } catch (DataIntegrityViolationException ex) {
             throw new ApiException("Duplicate product name or other unique constraint violation", HttpStatus.CONFLICT);
@@ -83,9 +124,14 @@ public class ProductService {
         if (productRequest.getNetPrice() != null && productRequest.getNetPrice() >= 0) {
             product.setNetPrice(productRequest.getNetPrice());
         }
+        boolean restocked = false;
         if (productRequest.getStock() != null && productRequest.getStock() >= 0) {
+            restocked = product.getStock() == null || productRequest.getStock() > product.getStock();
             product.setStock(productRequest.getStock());
         }
+        if (productRequest.getFlashSaleRate() != null) {
+            product.setFlashSaleRate(productRequest.getFlashSaleRate() > 0 ? productRequest.getFlashSaleRate() : null);
+        }
         if (productRequest.getCurrency() != null && !productRequest.getCurrency().isEmpty()) {
             product.setCurrency(productRequest.getCurrency());
         }
@@ -115,5 +161,112 @@ public class ProductService {
         }
 
         productRepository.save(product);
+        refreshCatalogAfterCommit(product.getId());
+        if (restocked) {
+            // A sold-out flash sale admits buyers for the new stock
+            afterCommit(() -> stockReservationService.onRestock(product.getId()));
+        }
+    }
+
+    private static Specification<Product> listingSpecification(ProductSort sort, ProductFilter filter,
+            ProductCursor after) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.minPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("netPrice"), filter.minPrice()));
+            }
+            if (filter.maxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("netPrice"), filter.maxPrice()));
+            }
+            if (Boolean.TRUE.equals(filter.inStock())) {
+                predicates.add(cb.greaterThan(root.get("stock"), 0));
+            }
+            if (filter.currency() != null && !filter.currency().isEmpty()) {
+                predicates.add(cb.equal(root.get("currency"), filter.currency()));
+            }
+            if (after != null) {
+                predicates.add(seekPredicate(sort, after, root, cb));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    private static Predicate seekPredicate(ProductSort sort, ProductCursor after, Root<Product> root,
+            CriteriaBuilder cb) {
+        Path<Long> id = root.get("id");
+        if (sort == ProductSort.NEWEST) {
+            return cb.lessThan(id, after.id());
+        }
+        if (sort.getProperty().equals("name")) {
+            return seek(cb, root.get("name"), after.value(), id, after.id(), sort.isAscending());
+        }
+        return seek(cb, root.get("netPrice"), Long.valueOf(after.value()), id, after.id(), sort.isAscending());
+    }
+
+    private static <T extends Comparable<? super T>> Predicate seek(CriteriaBuilder cb, Path<T> key, T value,
+            Path<Long> id, Long lastId, boolean ascending) {
+        if (ascending) {
+            return cb.or(cb.greaterThan(key, value), cb.and(cb.equal(key, value), cb.greaterThan(id, lastId)));
+        }
+        return cb.or(cb.lessThan(key, value), cb.and(cb.equal(key, value), cb.lessThan(id, lastId)));
+    }
+
+    /**
+     * Position of the last row of a page: the sort it belongs to, its id and
+     * its sort key value. Serialized as an opaque base64url token.
+     */
+    private record ProductCursor(ProductSort sort, Long id, String value) {
+
+        static ProductCursor of(ProductSort sort, Product product) {
+            String value = switch (sort) {
+                case PRICE_ASC, PRICE_DESC -> String.valueOf(product.getNetPrice());
+                case NAME_ASC, NAME_DESC -> product.getName();
+                case NEWEST -> "";
+            };
+            return new ProductCursor(sort, product.getId(), value);
+        }
+
+        String encode() {
+            String raw = sort.name() + ":" + id + ":" + value;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static ProductCursor decode(String cursor, ProductSort expectedSort) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] parts = raw.split(":", 3);
+                ProductSort sort = ProductSort.valueOf(parts[0]);
+                if (sort != expectedSort || parts.length != 3) {
+                    throw new IllegalArgumentException("Cursor does not match sort");
+                }
+                if (sort == ProductSort.PRICE_ASC || sort == ProductSort.PRICE_DESC) {
+                    Long.parseLong(parts[2]);
+                }
+                return new ProductCursor(sort, Long.valueOf(parts[1]), parts[2]);
+            } catch (IllegalArgumentException e) {
+                throw new ApiException("Invalid cursor", HttpStatus.BAD_REQUEST);
+            }
+        }
+    }
+
+    /**
+     * Publish the product to the catalog snapshot once the surrounding
+     * transaction (if any) has committed, so readers never see rolled back data.
+     */
+    private void refreshCatalogAfterCommit(Long productId) {
+        afterCommit(() -> catalogService.refreshProduct(productId));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
@@ -0,0 +1,117 @@
+package com.safekab.market.service.analytics;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.safekab.market.dto.analytics.ProductSales;
+import com.safekab.market.dto.analytics.ProductSalesRanking;
+import com.safekab.market.dto.analytics.SalesPoint;
+import com.safekab.market.dto.product.ProductResponseItem;
+import com.safekab.market.entity.Order;
+import com.safekab.market.entity.OrderProduct;
+import com.safekab.market.entity.PaymentStatus;
+import com.safekab.market.repository.analytics.SalesRollupRepository;
+import com.safekab.market.repository.analytics.SalesRollupRepository.Contribution;
+import com.safekab.market.service.catalog.CatalogService;
+
+/**
+ * Pre-aggregated sales per day, product and payment status.
+ *
+ * Orders are counted under their current payment status on the day they were
+ * placed: a new order is added as UNPAID in the transaction that creates it, and a
+ * payment moves it from one status to the other. Dashboard reads then only touch
+ * the small rollup tables; {@link #rebuild()} recomputes them from the orders.
+ *
+ * Nothing in the database keeps the rollups in step with the orders, so every
+ * payment status change must go through {@code OrderService}, which calls
+ * {@link #moveOrder} in the same transaction. A write that bypasses it leaves the
+ * rollups wrong until the next rebuild.
+ */
+@Service
+public class SalesRollupService {
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final CatalogService catalogService;
+
+    public SalesRollupService(SalesRollupRepository salesRollupRepository, CatalogService catalogService) {
+        this.salesRollupRepository = salesRollupRepository;
+        this.catalogService = catalogService;
+    }
+
+    /**
+     * Count a newly placed order, inside the transaction that creates it.
+     */
+    @Transactional
+    public void recordOrder(Order order) {
+        salesRollupRepository.add(contributionOf(order), order.getPaymentStatus(), 1);
+    }
+
+    /**
+     * Move an order's sales from one payment status to another.
+     */
+    @Transactional
+    public void moveOrder(Order order, PaymentStatus from, PaymentStatus to) {
+        if (from == to) {
+            return;
+        }
+        Contribution contribution = contributionOf(order);
+        salesRollupRepository.add(contribution, from, -1);
+        salesRollupRepository.add(contribution, to, 1);
+    }
+
+    public List<SalesPoint> daily(LocalDate from, LocalDate to, PaymentStatus status) {
+        return salesRollupRepository.findDaily(from, to, status);
+    }
+
+    public List<ProductSales> topProducts(LocalDate from, LocalDate to, PaymentStatus status,
+            ProductSalesRanking ranking, int limit) {
+        // Names come from the catalog snapshot rather than a join
+        return salesRollupRepository.findTopProducts(from, to, status, ranking, limit).stream()
+                .map(sales -> new ProductSales(sales.productId(),
+                        catalogService.getProduct(sales.productId()).map(ProductResponseItem::getName).orElse(null),
+                        sales.orderCount(), sales.units(), sales.revenue()))
+                .toList();
+    }
+
+    @Transactional
+    public int rebuild() {
+        return salesRollupRepository.rebuild();
+    }
+
+    // Fills the rollups on the first start after they were introduced
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (salesRollupRepository.isEmpty()) {
+            salesRollupRepository.rebuild();
+        }
+    }
+
+    private static Contribution contributionOf(Order order) {
+        // Lines are merged per product, as an upsert may touch each row only once
+        Map<Long, long[]> lines = new TreeMap<>();
+        long units = 0;
+        long gross = 0;
+        for (OrderProduct item : order.getOrderProducts()) {
+            long lineTotal = item.getChargedUnitPrice() * item.getQuantity();
+            long[] line = lines.computeIfAbsent(item.getProduct().getId(), id -> new long[2]);
+            line[0] += item.getQuantity();
+            line[1] += lineTotal;
+            units += item.getQuantity();
+            gross += lineTotal;
+        }
+        Long[] productIds = lines.keySet().toArray(Long[]::new);
+        Long[] productUnits = lines.values().stream().map(line -> line[0]).toArray(Long[]::new);
+        Long[] productRevenue = lines.values().stream().map(line -> line[1]).toArray(Long[]::new);
+        short shard = (short) (order.getId() % SalesRollupRepository.SHARDS);
+        return new Contribution(order.getOrderDate().toLocalDate(), shard, units, gross + order.getShippingCost(),
+                productIds, productUnits, productRevenue);
+    }
+}
@@ -0,0 +1,278 @@
+package com.safekab.market.service.cart;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.safekab.market.exception.ApiException;
+import com.safekab.market.repository.ProductRepository;
+import com.safekab.market.repository.cart.CartBatchRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind cache of carts, keyed by user.
+ *
+ * Cart reads and writes are served from memory; changed lines are written to
+ * cart_products on a fixed interval, all dirty carts in two statements. A crash
+ * loses at most one flush interval of cart changes. Carts are cached per node with
+ * no invalidation between nodes, so this is opt-in: enable it only where a user's
+ * requests always reach the same node (sticky sessions). Behind a round-robin load
+ * balancer each node would serve and flush its own copy of the cart.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cart.write-behind", havingValue = "true")
+public class CartCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CartCache.class);
+
+    private final CartBatchRepository cartBatchRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transaction;
+    private final long idleNanos;
+    private final Map<Long, CartState> carts = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Versions are drawn from one counter so a reloaded cart never repeats an old one
+    private static final AtomicLong versions = new AtomicLong();
+
+    public CartCache(CartBatchRepository cartBatchRepository, ProductRepository productRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.cart.idle-ttl:1800000}") long idleTtlMs) {
+        this.cartBatchRepository = cartBatchRepository;
+        this.productRepository = productRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.idleNanos = Duration.ofMillis(idleTtlMs).toNanos();
+    }
+
+    /**
+     * A point-in-time copy of a cart. The version changes whenever its lines do.
+     */
+    public record CartView(long cartId, long version, Map<Long, Integer> lines) {
+    }
+
+    private static final class CartState {
+        final long cartId;
+        final Map<Long, Integer> lines;
+        // Products whose line changed since the last flush
+        final Set<Long> dirty = new HashSet<>();
+        long version = versions.incrementAndGet();
+        long lastAccess = System.nanoTime();
+        boolean evicted;
+
+        CartState(long cartId, Map<Long, Integer> lines) {
+            this.cartId = cartId;
+            this.lines = lines;
+        }
+
+        CartView view() {
+            return new CartView(cartId, version, Map.copyOf(lines));
+        }
+    }
+
+    public CartView get(Long userId) {
+        return withState(userId, CartState::view);
+    }
+
+    /**
+     * Set absolute quantities, then add deltas; lines that end below one are removed.
+     */
+    public CartView apply(Long userId, Map<Long, Integer> absolute, Map<Long, Integer> relative) {
+        return withState(userId, state -> {
+            absolute.forEach((productId, quantity) -> put(state, productId, quantity));
+            relative.forEach((productId, delta) -> put(state, productId, state.lines.getOrDefault(productId, 0) + delta));
+            return state.view();
+        });
+    }
+
+    /**
+     * Remove lines for the given products, returning how many were in the cart.
+     */
+    public int remove(Long userId, Collection<Long> productIds) {
+        return withState(userId, state -> {
+            int removed = 0;
+            for (Long productId : productIds) {
+                if (state.lines.containsKey(productId)) {
+                    put(state, productId, 0);
+                    removed++;
+                }
+            }
+            return removed;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.flush-interval:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushLocked();
+            evictIdle();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private <T> T withState(Long userId, Function<CartState, T> action) {
+        while (true) {
+            CartState state = carts.get(userId);
+            if (state == null) {
+                CartState loaded = load(userId);
+                state = carts.putIfAbsent(userId, loaded);
+                if (state == null) {
+                    state = loaded;
+                }
+            }
+            synchronized (state) {
+                if (!state.evicted) {
+                    state.lastAccess = System.nanoTime();
+                    return action.apply(state);
+                }
+            }
+        }
+    }
+
+    private CartState load(Long userId) {
+        long cartId;
+        try {
+            cartId = cartBatchRepository.resolveCartId(userId);
+        } catch (DataIntegrityViolationException e) {
+            throw new ApiException("User not found", HttpStatus.NOT_FOUND);
+        }
+        return new CartState(cartId, cartBatchRepository.findLines(cartId));
+    }
+
+    private static void put(CartState state, Long productId, int quantity) {
+        Integer previous = quantity < 1 ? state.lines.remove(productId) : state.lines.put(productId, quantity);
+        if (previous == null ? quantity >= 1 : previous != quantity) {
+            state.dirty.add(productId);
+            state.version = versions.incrementAndGet();
+        }
+    }
+
+    private void flushLocked() {
+        Map<CartState, Set<Long>> taken = new LinkedHashMap<>();
+        for (CartState state : carts.values()) {
+            synchronized (state) {
+                if (!state.dirty.isEmpty()) {
+                    taken.put(state, new HashSet<>(state.dirty));
+                    state.dirty.clear();
+                }
+            }
+        }
+        if (taken.isEmpty()) {
+            return;
+        }
+        try {
+            write(taken);
+        } catch (DataIntegrityViolationException e) {
+            // A product or cart was deleted under us: drop the lines that can no longer
+            // be written and retry the rest cart by cart
+            dropMissingProducts(taken);
+            taken.forEach(this::writeOrDiscard);
+        } catch (DataAccessException e) {
+            log.warn("Cart flush failed; retrying on the next run", e);
+            taken.forEach(this::markDirty);
+        }
+    }
+
+    private void write(Map<CartState, Set<Long>> taken) {
+        List<Long> upsertCarts = new ArrayList<>();
+        List<Long> upsertProducts = new ArrayList<>();
+        List<Integer> upsertQuantities = new ArrayList<>();
+        List<Long> deleteCarts = new ArrayList<>();
+        List<Long> deleteProducts = new ArrayList<>();
+        taken.forEach((state, productIds) -> {
+            synchronized (state) {
+                for (Long productId : productIds) {
+                    Integer quantity = state.lines.get(productId);
+                    if (quantity != null) {
+                        upsertCarts.add(state.cartId);
+                        upsertProducts.add(productId);
+                        upsertQuantities.add(quantity);
+                    } else {
+                        deleteCarts.add(state.cartId);
+                        deleteProducts.add(productId);
+                    }
+                }
+            }
+        });
+        transaction.executeWithoutResult(status -> {
+            cartBatchRepository.upsertLines(upsertCarts, upsertProducts, upsertQuantities);
+            cartBatchRepository.deleteLines(deleteCarts, deleteProducts);
+        });
+    }
+
+    private void writeOrDiscard(CartState state, Set<Long> productIds) {
+        try {
+            write(Map.of(state, productIds));
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Discarding cached cart {} that can no longer be written", state.cartId, e);
+            synchronized (state) {
+                state.evicted = true;
+                carts.values().remove(state);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Cart flush failed; retrying on the next run", e);
+            markDirty(state, productIds);
+        }
+    }
+
+    private void dropMissingProducts(Map<CartState, Set<Long>> taken) {
+        Set<Long> productIds = new HashSet<>();
+        taken.values().forEach(productIds::addAll);
+        productIds.removeAll(productRepository.findExistingIds(productIds));
+        if (productIds.isEmpty()) {
+            return;
+        }
+        taken.forEach((state, pending) -> {
+            synchronized (state) {
+                state.lines.keySet().removeAll(productIds);
+                state.version = versions.incrementAndGet();
+            }
+        });
+    }
+
+    private void markDirty(CartState state, Set<Long> productIds) {
+        synchronized (state) {
+            state.dirty.addAll(productIds);
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        carts.values().removeIf(state -> {
+            synchronized (state) {
+                if (state.dirty.isEmpty() && now - state.lastAccess > idleNanos) {
+                    state.evicted = true;
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+}
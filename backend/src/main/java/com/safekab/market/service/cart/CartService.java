@@ -1,125 +1,246 @@
 package com.safekab.market.service.cart;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntSupplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import com.safekab.market.entity.Product;
-import com.safekab.market.entity.User;
+import com.safekab.market.dto.cart.CartOperation;
+import com.safekab.market.dto.cart.CartProductResponseItem;
+import com.safekab.market.dto.cart.CartResponse;
+import com.safekab.market.entity.Config;
 import com.safekab.market.entity.cart.Cart;
-import com.safekab.market.entity.cart.CartProduct;
 import com.safekab.market.exception.ApiException;
 import com.safekab.market.repository.ProductRepository;
-import com.safekab.market.repository.UserRepository;
+import com.safekab.market.repository.cart.CartBatchRepository;
 import com.safekab.market.repository.cart.CartProductRepository;
 import com.safekab.market.repository.cart.CartRepository;
+import com.safekab.market.service.ConfigService;
+import com.safekab.market.service.cart.CartCache.CartView;
+import com.safekab.market.service.catalog.CatalogService;
+import com.safekab.market.service.catalog.CatalogSnapshot;
 
 @Service
 public class CartService {
 
+  private static final int PRICED_CART_CAPACITY = 10_000;
+
   @Autowired
   private CartRepository cartRepository;
   @Autowired
   private ProductRepository productRepository;
   @Autowired
-  private UserRepository userRepository;
-  @Autowired
   private CartProductRepository cartProductRepository;
+  @Autowired
+  private CartBatchRepository cartBatchRepository;
+  @Autowired
+  private CatalogService catalogService;
+  @Autowired
+  private ConfigService configService;
+  // Absent unless app.cart.write-behind is true; carts are then read and written directly
+  @Autowired(required = false)
+  private CartCache cartCache;
+
+  private record PricedCart(long cartVersion, long catalogVersion, long shippingCost, CartResponse response) {
+  }
+
+  // Last priced response per cart, least recently used first
+  private final Map<Long, PricedCart> pricedCarts = Collections.synchronizedMap(
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, PricedCart> eldest) {
+          return size() > PRICED_CART_CAPACITY;
+        }
+      });
+
+  public CartResponse getCart(Long userId) {
+    if (cartCache != null) {
+      return toResponse(cartCache.get(userId));
+    }
+    return new CartResponse(getCartByUser(userId), shippingCost());
+  }
 
   public Cart getCartByUser(Long userId) {
-    User user = userRepository.findById(userId)
-        .orElseThrow(() -> new RuntimeException("User not found"));
-    return cartRepository.findByUser(user).orElseGet(() -> {
-      Cart newCart = new Cart();
-      newCart.setUser(user);
-      return cartRepository.save(newCart);
+    return cartRepository.findWithProductsByUserId(userId).orElseGet(() -> {
+      createCart(userId);
+      return cartRepository.findWithProductsByUserId(userId).orElseThrow();
     });
   }
 
-  public Cart deltaProductQuantity(Long userId, Long productId, Integer delta) {
-    User user = userRepository.findById(userId)
-        .orElseThrow(() -> new ApiException("User not found", HttpStatus.NOT_FOUND));
-    Cart cart = cartRepository.findByUser(user).orElseGet(() -> {
-      Cart newCart = new Cart();
-      newCart.setUser(user);
-      return cartRepository.save(newCart);
-    });
-    Product product = productRepository.findById(productId)
-        .orElseThrow(() -> new ApiException("Product not found", HttpStatus.NOT_FOUND));
-    CartProduct cartProduct = cartProductRepository.findByCartAndProduct(cart, product)
-        .orElseGet(() -> {
-          CartProduct newCartProduct = new CartProduct();
-          newCartProduct.setCart(cart);
-          newCartProduct.setProduct(product);
-          newCartProduct.setQuantity(0);
-          return cartProductRepository.save(newCartProduct);
-        });
-    if (cartProduct.getQuantity() + delta < 1) {
-      cartProductRepository.delete(cartProduct);
-    } else {
-      cartProduct.setQuantity(cartProduct.getQuantity() + delta);
-      cartProductRepository.save(cartProduct);
+  /**
+   * Add delta to a product's quantity in the user's cart, dropping the line when it
+   * falls below one. Increments are a single upsert, so concurrent adds of the same
+   * product from two tabs both count.
+   */
+  public void deltaProductQuantity(Long userId, Long productId, Integer delta) {
+    if (cartCache != null) {
+      requireProducts(Set.of(productId));
+      cartCache.apply(userId, Map.of(), Map.of(productId, delta));
+      return;
+    }
+    if (delta < 1) {
+      // Decrements never create a line. Each statement re-checks the quantity it
+      // acts on, so of two racing decrements one lowers the line and the other
+      // finds it depleted; a second pass covers an add landing in between.
+      for (int attempt = 0; attempt < 2; attempt++) {
+        if (cartProductRepository.updateQuantity(userId, productId, delta) > 0
+            || cartProductRepository.deleteIfDepleted(userId, productId, delta) > 0) {
+          return;
+        }
+      }
+      return;
     }
-    return cart;
+    upsert(userId, () -> cartProductRepository.addQuantity(userId, productId, delta));
   }
 
-  public Cart updateProductQuantity(Long userId, Long productId, Integer quantity) {
-    User user = userRepository.findById(userId)
-        .orElseThrow(() -> new ApiException("User not found", HttpStatus.NOT_FOUND));
-    Cart cart = cartRepository.findByUser(user).orElseGet(() -> {
-      Cart newCart = new Cart();
-      newCart.setUser(user);
-      return cartRepository.save(newCart);
-    });
-    Product product = productRepository.findById(productId)
-        .orElseThrow(() -> new ApiException("Product not found", HttpStatus.NOT_FOUND));
-    CartProduct cartProduct = cartProductRepository.findByCartAndProduct(cart, product)
-        .orElseGet(() -> {
-          CartProduct newCartProduct = new CartProduct();
-          newCartProduct.setCart(cart);
-          newCartProduct.setProduct(product);
-          newCartProduct.setQuantity(0);
-          return cartProductRepository.save(newCartProduct);
-        });
+  public void updateProductQuantity(Long userId, Long productId, Integer quantity) {
+    if (cartCache != null) {
+      requireProducts(Set.of(productId));
+      cartCache.apply(userId, Map.of(productId, quantity), Map.of());
+      return;
+    }
     if (quantity < 1) {
-      cartProductRepository.delete(cartProduct);
-    } else {
-      cartProduct.setQuantity(quantity);
-      cartProductRepository.save(cartProduct);
+      cartProductRepository.deleteByUserIdAndProductId(userId, productId);
+      return;
     }
-    return cart;
+    upsert(userId, () -> cartProductRepository.setQuantity(userId, productId, quantity));
   }
 
   public void removeProductFromCart(Long userId, Long productId) {
-    User user = userRepository.findById(userId)
-        .orElseThrow(() -> new RuntimeException("User not found"));
-    Cart cart = cartRepository.findByUser(user).orElseThrow(() -> new RuntimeException("Cart not found"));
-    Product product = productRepository.findById(productId)
-        .orElseThrow(() -> new ApiException("Product not found", HttpStatus.NOT_FOUND));
-    CartProduct cartProduct = cartProductRepository.findByCartAndProduct(cart, product)
-        .orElseThrow(() -> new ApiException("CartProduct not found", HttpStatus.NOT_FOUND));
-    cartProductRepository.delete(cartProduct);
+    int removed = cartCache != null
+        ? cartCache.remove(userId, List.of(productId))
+        : cartProductRepository.deleteByUserIdAndProductId(userId, productId);
+    if (removed == 0) {
+      throw new ApiException("CartProduct not found", HttpStatus.NOT_FOUND);
+    }
   }
 
   public void removeProductsFromCart(Long userId, List<Long> productIds) {
+    if (cartCache != null) {
+      cartCache.remove(userId, productIds);
+      return;
+    }
+    cartProductRepository.deleteByUserIdAndProductIdIn(userId, productIds);
+  }
+
+  /**
+   * Apply a list of cart operations in one transaction. Operations are folded per
+   * product first, so the number of statements does not grow with the batch.
+   */
+  @Transactional
+  public CartResponse applyOperations(Long userId, List<CartOperation> operations) {
+    // An absolute quantity resets the line; deltas accumulate on whatever came before
+    Map<Long, Integer> absolute = new LinkedHashMap<>();
+    Map<Long, Integer> relative = new LinkedHashMap<>();
+    for (CartOperation operation : operations) {
+      if ((operation.getDelta() == null) == (operation.getQuantity() == null)) {
+        throw new ApiException("Each operation needs exactly one of delta or quantity", HttpStatus.BAD_REQUEST);
+      }
+      Long productId = operation.getProductId();
+      if (operation.getQuantity() != null) {
+        absolute.put(productId, operation.getQuantity());
+        relative.remove(productId);
+      } else if (absolute.containsKey(productId)) {
+        absolute.merge(productId, operation.getDelta(), Integer::sum);
+      } else {
+        relative.merge(productId, operation.getDelta(), Integer::sum);
+      }
+    }
+    Set<Long> productIds = new HashSet<>(absolute.keySet());
+    productIds.addAll(relative.keySet());
+    requireProducts(productIds);
+
+    if (cartCache != null) {
+      return toResponse(cartCache.apply(userId, absolute, relative));
+    }
+    long cartId;
+    try {
+      cartId = cartBatchRepository.resolveCartId(userId);
+    } catch (DataIntegrityViolationException e) {
+      throw new ApiException("User not found", HttpStatus.NOT_FOUND);
+    }
+    cartBatchRepository.setQuantities(cartId, absolute);
+    cartBatchRepository.addQuantities(cartId, relative);
+    cartBatchRepository.deleteDepleted(cartId);
+    return new CartResponse(cartRepository.findWithProductsByUserId(userId).orElseThrow(), shippingCost());
+  }
+
+  /**
+   * Run a cart line write, creating the user's cart first if the write found none.
+   */
+  private void upsert(Long userId, IntSupplier write) {
     try {
-      User user = userRepository.findById(userId)
-          .orElseThrow(() -> new ApiException("User not found", HttpStatus.NOT_FOUND));
-      Cart cart = cartRepository.findByUser(user)
-          .orElseThrow(() -> new ApiException("Cart not found", HttpStatus.NOT_FOUND));
-      for (Long productId : productIds) {
-        Product product = productRepository.findById(productId)
-            .orElseThrow(() -> new ApiException("Product not found",
-                HttpStatus.NOT_FOUND));
-        cartProductRepository.findByCartAndProduct(cart, product)
-            .ifPresent(cartProductRepository::delete);
+      if (write.getAsInt() == 0) {
+        createCart(userId);
+        write.getAsInt();
       }
-    } catch (ApiException e) {
-      throw e;
-    } catch (Exception e) {
+    } catch (DataIntegrityViolationException e) {
+      // The only constraint an upsert can break is the product foreign key
+      throw new ApiException("Product not found", HttpStatus.NOT_FOUND);
+    }
+  }
+
+  private void createCart(Long userId) {
+    try {
+      cartRepository.createIfAbsent(userId);
+    } catch (DataIntegrityViolationException e) {
+      throw new ApiException("User not found", HttpStatus.NOT_FOUND);
     }
   }
 
+  /**
+   * Fail with 404 unless every product exists. Cached carts check the catalog
+   * snapshot rather than the database.
+   */
+  private void requireProducts(Set<Long> productIds) {
+    Set<Long> missing = new HashSet<>(productIds);
+    if (cartCache != null) {
+      CatalogSnapshot snapshot = catalogService.getSnapshot();
+      missing.removeIf(productId -> snapshot.find(productId).isPresent());
+    } else {
+      missing.removeAll(productRepository.findExistingIds(productIds));
+    }
+    if (missing.size() == 1 && productIds.size() == 1) {
+      throw new ApiException("Product not found", HttpStatus.NOT_FOUND);
+    }
+    if (!missing.isEmpty()) {
+      throw new ApiException("Products not found: " + missing, HttpStatus.NOT_FOUND);
+    }
+  }
+
+  /**
+   * Build the priced response for a cached cart, reusing the last one while the
+   * cart, the catalog and the shipping cost are all unchanged.
+   */
+  private CartResponse toResponse(CartView cart) {
+    CatalogSnapshot snapshot = catalogService.getSnapshot();
+    long shippingCost = shippingCost();
+    PricedCart priced = pricedCarts.get(cart.cartId());
+    if (priced != null && priced.cartVersion() == cart.version() && priced.catalogVersion() == snapshot.version()
+        && priced.shippingCost() == shippingCost) {
+      return priced.response();
+    }
+    Set<CartProductResponseItem> products = new HashSet<>();
+    cart.lines().forEach((productId, quantity) -> snapshot.find(productId).ifPresent(product -> products.add(
+        new CartProductResponseItem(product.getId(), product.getName(), product.getDescription(),
+            product.getNetPrice(), product.getVatRate(), product.getStock(), quantity))));
+    CartResponse response = new CartResponse(cart.cartId(), products, shippingCost);
+    pricedCarts.put(cart.cartId(), new PricedCart(cart.version(), snapshot.version(), shippingCost, response));
+    return response;
+  }
+
+  private long shippingCost() {
+    Config config = configService.getConfig();
+    return config != null && config.getShippingCost() != null ? config.getShippingCost() : 0;
+  }
+
 }
@@ -0,0 +1,102 @@
+package com.safekab.market.service.catalog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safekab.market.dto.product.ProductResponse;
+
+/**
+ * Keeps serialized (and gzip compressed) catalog responses for the current
+ * catalog version, so repeated reads skip Jackson and compression entirely.
+ * Everything is discarded as soon as a new snapshot is published.
+ */
+@Component
+public class CatalogResponseCache {
+
+    // Below this size gzip framing overhead outweighs the savings
+    private static final int MIN_GZIP_BYTES = 1024;
+    private static final String CATALOG_KEY = "catalog";
+
+    private record VersionedBodies(long version, Map<String, EncodedBody> bodies) {
+    }
+
+    private final CatalogService catalogService;
+    private final ObjectMapper objectMapper;
+    private final AtomicReference<VersionedBodies> cache = new AtomicReference<>(
+            new VersionedBodies(-1, Map.of()));
+
+    public CatalogResponseCache(CatalogService catalogService, ObjectMapper objectMapper) {
+        this.catalogService = catalogService;
+        this.objectMapper = objectMapper;
+    }
+
+    public EncodedBody catalog() {
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        return bodiesFor(snapshot).computeIfAbsent(CATALOG_KEY,
+                key -> encode(() -> ProductResponse.ofItems(snapshot.products()), snapshot.builtAt()));
+    }
+
+    public Optional<EncodedBody> product(Long id) {
+        CatalogSnapshot snapshot = catalogService.getSnapshot();
+        return snapshot.find(id)
+                .map(item -> bodiesFor(snapshot).computeIfAbsent("product:" + id, key -> encode(() -> item, snapshot.builtAt())));
+    }
+
+    private Map<String, EncodedBody> bodiesFor(CatalogSnapshot snapshot) {
+        VersionedBodies current = cache.get();
+        if (current.version() == snapshot.version()) {
+            return current.bodies();
+        }
+        VersionedBodies fresh = new VersionedBodies(snapshot.version(), new ConcurrentHashMap<>());
+        // Only move forward; a reader holding an older snapshot just serializes uncached
+        VersionedBodies winner = cache.accumulateAndGet(fresh,
+                (prev, next) -> next.version() > prev.version() ? next : prev);
+        return winner.version() == snapshot.version() ? winner.bodies() : new ConcurrentHashMap<>();
+    }
+
+    private EncodedBody encode(Supplier<Object> body, Instant lastModified) {
+        try {
+            byte[] identity = objectMapper.writeValueAsBytes(body.get());
+            return new EncodedBody(identity,
+                    identity.length >= MIN_GZIP_BYTES ? gzip(identity) : null,
+                    etag(identity),
+                    lastModified);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize catalog response", e);
+        }
+    }
+
+    private static String etag(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,122 @@
+package com.safekab.market.service.catalog;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.safekab.market.dto.product.ProductResponseItem;
+import com.safekab.market.repository.ProductRepository;
+
+/**
+ * Serves catalog reads from an in-memory {@link CatalogSnapshot}.
+ *
+ * The snapshot is swapped atomically after product writes commit, and fully
+ * reloaded on a fixed interval so that nodes which did not handle the write
+ * still converge.
+ */
+@Service
+public class CatalogService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogService.class);
+
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex searchIndex;
+    private final TransactionTemplate readTransaction;
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    // Writers are rare; serialising them keeps a slow reload from overwriting a newer refresh
+    private final Object writeLock = new Object();
+
+    public CatalogService(ProductRepository productRepository, ProductSearchIndex searchIndex,
+            PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.searchIndex = searchIndex;
+        // A fresh persistence context: the caller's (open-in-view) one may hold the
+        // product instance that was just written, with stale or uninitialised images
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    public CatalogSnapshot getSnapshot() {
+        CatalogSnapshot current = snapshot.get();
+        if (current != null) {
+            return current;
+        }
+        synchronized (writeLock) {
+            current = snapshot.get();
+            return current != null ? current : reloadLocked();
+        }
+    }
+
+    public Optional<ProductResponseItem> getProduct(Long id) {
+        return getSnapshot().find(id);
+    }
+
+    /**
+     * Full-text search over the catalog, best match first.
+     */
+    public List<ProductResponseItem> search(String query, int limit) {
+        CatalogSnapshot current = getSnapshot();
+        return searchIndex.search(query, limit).stream()
+                .map(current::find)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.refresh-interval:60000}")
+    public void reload() {
+        synchronized (writeLock) {
+            reloadLocked();
+        }
+    }
+
+    /**
+     * Re-read a single product and publish a snapshot containing it. Called once
+     * the transaction that modified the product has committed.
+     */
+    public void refreshProduct(Long id) {
+        synchronized (writeLock) {
+            CatalogSnapshot current = snapshot.get();
+            if (current == null) {
+                reloadLocked();
+                return;
+            }
+            Optional<ProductResponseItem> item = readTransaction.execute(status -> productRepository
+                    .findWithImagesById(id)
+                    .map(ProductResponseItem::new));
+            if (item.isPresent()) {
+                snapshot.set(current.with(versions.incrementAndGet(), item.get()));
+                searchIndex.index(item.get());
+            } else {
+                snapshot.set(current.without(versions.incrementAndGet(), id));
+                searchIndex.remove(id);
+            }
+        }
+    }
+
+    private CatalogSnapshot reloadLocked() {
+        var items = readTransaction.execute(status -> productRepository.findAllWithImages().stream()
+                .map(ProductResponseItem::new)
+                .toList());
+        CatalogSnapshot current = snapshot.get();
+        if (current != null && current.products().equals(items)) {
+            // Nothing changed; keep the version so downstream caches stay warm
+            return current;
+        }
+        CatalogSnapshot next = CatalogSnapshot.of(versions.incrementAndGet(), items);
+        searchIndex.rebuild(next.products());
+        snapshot.set(next);
+        log.debug("Catalog snapshot v{} loaded with {} products", next.version(), next.products().size());
+        return next;
+    }
+}
@@ -0,0 +1,50 @@
+package com.safekab.market.service.catalog;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.safekab.market.dto.product.ProductResponseItem;
+
+/**
+ * Immutable, pre-mapped view of the product catalog. A new snapshot is built
+ * whenever a product changes; readers only ever see a complete snapshot.
+ */
+public record CatalogSnapshot(long version, Instant builtAt, List<ProductResponseItem> products,
+        Map<Long, ProductResponseItem> productsById) {
+
+    public static CatalogSnapshot of(long version, Collection<ProductResponseItem> items) {
+        List<ProductResponseItem> sorted = items.stream()
+                .sorted(Comparator.comparing(ProductResponseItem::getId))
+                .toList();
+        Map<Long, ProductResponseItem> byId = new LinkedHashMap<>();
+        sorted.forEach(item -> byId.put(item.getId(), item));
+        return new CatalogSnapshot(version, Instant.now(), sorted, Map.copyOf(byId));
+    }
+
+    public Optional<ProductResponseItem> find(Long id) {
+        return Optional.ofNullable(productsById.get(id));
+    }
+
+    /**
+     * Copy of this snapshot with a single product added or replaced.
+     */
+    public CatalogSnapshot with(long newVersion, ProductResponseItem item) {
+        Map<Long, ProductResponseItem> byId = new LinkedHashMap<>(productsById);
+        byId.put(item.getId(), item);
+        return of(newVersion, byId.values());
+    }
+
+    /**
+     * Copy of this snapshot with a single product removed.
+     */
+    public CatalogSnapshot without(long newVersion, Long id) {
+        Map<Long, ProductResponseItem> byId = new LinkedHashMap<>(productsById);
+        byId.remove(id);
+        return of(newVersion, byId.values());
+    }
+}
@@ -0,0 +1,65 @@
+package com.safekab.market.service.catalog;
+
+import java.time.Instant;
+
+/**
+ * A JSON response body serialized once, with an optional gzip variant.
+ * {@code gzip} is null when compressing would not pay off. {@code etag} is a
+ * strong validator derived from the identity bytes, so it is stable across
+ * restarts and nodes.
+ */
+public record EncodedBody(byte[] identity, byte[] gzip, String etag, Instant lastModified) {
+
+    /**
+     * The gzip variant is a different representation, so it gets its own
+     * strong validator.
+     */
+    public String gzipEtag() {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    /**
+     * Whether the gzip variant should be sent for the given Accept-Encoding
+     * header value. An explicit {@code gzip} entry wins over {@code *}, whatever
+     * their order.
+     */
+    public boolean useGzip(String acceptEncoding) {
+        if (gzip == null || acceptEncoding == null) {
+            return false;
+        }
+        Boolean gzipAccepted = null;
+        Boolean anyAccepted = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] coding = part.trim().split(";");
+            String name = coding[0].trim();
+            if (name.equalsIgnoreCase("gzip")) {
+                gzipAccepted = accepted(coding);
+            } else if (name.equals("*")) {
+                anyAccepted = accepted(coding);
+            }
+        }
+        if (gzipAccepted != null) {
+            return gzipAccepted;
+        }
+        return anyAccepted != null && anyAccepted;
+    }
+
+    // "gzip;q=0" explicitly refuses the encoding
+    private static boolean accepted(String[] coding) {
+        for (int i = 1; i < coding.length; i++) {
+            String param = coding[i].trim();
+            if (param.startsWith("q=") && isZero(param.substring(2))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isZero(String qValue) {
+        try {
+            return Double.parseDouble(qValue) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
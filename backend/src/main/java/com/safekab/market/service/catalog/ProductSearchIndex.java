@@ -0,0 +1,189 @@
+package com.safekab.market.service.catalog;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Component;
+
+import com.safekab.market.dto.product.ProductResponseItem;
+
+/**
+ * In-memory inverted index over product name and description, ranked with
+ * BM25. Names count double. The last query term also matches as a prefix
+ * so the index can back type-ahead.
+ *
+ * Kept in step with the catalog snapshot by {@link CatalogService}.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_WEIGHT = 2;
+    // Bounds the work a one-letter type-ahead prefix can cause
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // term -> (product id -> weighted term frequency)
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private record Document(Map<String, Integer> frequencies, int length) {
+    }
+
+    // product id -> its weighted term frequencies, needed to unindex it
+    private final Map<Long, Document> documents = new HashMap<>();
+    private long totalLength;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void rebuild(Collection<ProductResponseItem> items) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+            items.forEach(this::addLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(ProductResponseItem item) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(item.getId());
+            addLocked(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of products matching every query term, best match first. The final
+     * term is treated as a prefix unless the query ends in whitespace.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        boolean lastIsPrefix = !Character.isWhitespace(query.charAt(query.length() - 1));
+
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / documents.size();
+            Map<Long, Double> scores = null;
+            for (int i = 0; i < terms.size(); i++) {
+                boolean prefix = lastIsPrefix && i == terms.size() - 1;
+                Map<Long, Double> termScores = scoreTerm(terms.get(i), prefix, averageLength);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // All terms must match
+                    scores.keySet().retainAll(termScores.keySet());
+                    for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + termScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Double> scoreTerm(String term, boolean prefix, double averageLength) {
+        Map<Long, Double> scores = new HashMap<>();
+        Collection<Map.Entry<String, Map<Long, Integer>>> matches;
+        if (prefix) {
+            matches = postings.subMap(term, true, term + Character.MAX_VALUE, true).entrySet().stream()
+                    .limit(MAX_PREFIX_EXPANSIONS)
+                    .toList();
+        } else {
+            Map<Long, Integer> exact = postings.get(term);
+            matches = exact == null ? List.of() : List.of(Map.entry(term, exact));
+        }
+        int documentCount = documents.size();
+        for (Map.Entry<String, Map<Long, Integer>> match : matches) {
+            Map<Long, Integer> docs = match.getValue();
+            double idf = Math.log(1 + (documentCount - docs.size() + 0.5) / (docs.size() + 0.5));
+            for (Map.Entry<Long, Integer> doc : docs.entrySet()) {
+                double tf = doc.getValue();
+                double length = documents.get(doc.getKey()).length();
+                double score = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+                // A prefix expanding to several terms counts its best match only
+                scores.merge(doc.getKey(), score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private void addLocked(ProductResponseItem item) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokenize(item.getName()).forEach(term -> frequencies.merge(term, NAME_WEIGHT, Integer::sum));
+        tokenize(item.getDescription()).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+        documents.put(item.getId(), new Document(frequencies, length));
+        totalLength += length;
+        frequencies.forEach((term, tf) -> postings.computeIfAbsent(term, key -> new HashMap<>()).put(item.getId(), tf));
+    }
+
+    private void removeLocked(Long id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        totalLength -= document.length();
+        document.frequencies().forEach((term, tf) -> {
+            Map<Long, Integer> docs = postings.get(term);
+            docs.remove(id);
+            if (docs.isEmpty()) {
+                postings.remove(term);
+            }
+        });
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
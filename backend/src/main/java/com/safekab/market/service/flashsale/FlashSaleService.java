@@ -0,0 +1,232 @@
+package com.safekab.market.service.flashsale;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.safekab.market.dto.flashsale.FlashSaleStatusResponse;
+import com.safekab.market.dto.flashsale.FlashSaleStatusResponse.State;
+import com.safekab.market.dto.product.ProductResponseItem;
+import com.safekab.market.exception.ApiException;
+import com.safekab.market.repository.ProductRepository;
+import com.safekab.market.service.catalog.CatalogService;
+
+/**
+ * Admission queue for products in a flash sale.
+ *
+ * Buyers join a bounded FIFO queue per product and are admitted at the product's
+ * flash sale rate; only admitted buyers may order the product. Once stock runs out
+ * the queue stops admitting and every caller is answered "sold out" from memory,
+ * so a launch never reaches the product row or the connection pool with more
+ * buyers than it can serve. Queues live on the node that served the request, so
+ * flash sale traffic must be routed to a single node.
+ */
+@Service
+public class FlashSaleService {
+
+    private final CatalogService catalogService;
+    private final ProductRepository productRepository;
+    private final int capacity;
+    private final Duration admissionTtl;
+    private final Map<Long, AdmissionQueue> queues = new ConcurrentHashMap<>();
+
+    public FlashSaleService(CatalogService catalogService, ProductRepository productRepository,
+            @Value("${app.flash-sale.queue-capacity:10000}") int capacity,
+            @Value("${app.flash-sale.admission-ttl:300000}") long admissionTtlMs) {
+        this.catalogService = catalogService;
+        this.productRepository = productRepository;
+        this.capacity = capacity;
+        this.admissionTtl = Duration.ofMillis(admissionTtlMs);
+    }
+
+    private static final class AdmissionQueue {
+        final ArrayDeque<Long> waiting = new ArrayDeque<>();
+        final Map<Long, Long> tickets = new HashMap<>();
+        final Map<Long, Instant> admitted = new HashMap<>();
+        long nextTicket = 1;
+        long admittedThrough;
+        volatile boolean soldOut;
+    }
+
+    public boolean isFlashSale(Long productId) {
+        return catalogService.getProduct(productId).map(item -> item.getFlashSaleRate() != null).orElse(false);
+    }
+
+    /**
+     * Join the queue for a product, or report where the user already is.
+     */
+    public FlashSaleStatusResponse join(Long userId, Long productId) {
+        int rate = rateOf(productId);
+        AdmissionQueue queue = queues.computeIfAbsent(productId, id -> new AdmissionQueue());
+        synchronized (queue) {
+            if (!queue.soldOut && !isAdmitted(queue, userId) && !queue.tickets.containsKey(userId)) {
+                if (queue.waiting.size() >= capacity) {
+                    throw new ApiException("Flash sale queue is full", HttpStatus.SERVICE_UNAVAILABLE);
+                }
+                long ticket = queue.nextTicket++;
+                queue.waiting.addLast(userId);
+                queue.tickets.put(userId, ticket);
+            }
+            return statusLocked(queue, userId, productId, rate);
+        }
+    }
+
+    public FlashSaleStatusResponse status(Long userId, Long productId) {
+        int rate = rateOf(productId);
+        AdmissionQueue queue = queues.get(productId);
+        if (queue == null) {
+            return new FlashSaleStatusResponse(productId, State.NOT_QUEUED, null, null, null, null);
+        }
+        synchronized (queue) {
+            return statusLocked(queue, userId, productId, rate);
+        }
+    }
+
+    /**
+     * Use up the user's admission for a product before ordering it. Fails fast with
+     * 409 once sold out and 403 when the user has not been admitted. If the order's
+     * transaction rolls back, the admission is handed back so the buyer keeps their
+     * slot.
+     */
+    public void consumeAdmission(Long userId, Long productId) {
+        AdmissionQueue queue = queues.get(productId);
+        if (queue != null && queue.soldOut) {
+            throw new ApiException("Sold out", HttpStatus.CONFLICT);
+        }
+        if (queue == null) {
+            throw new ApiException("Join the flash sale queue before ordering", HttpStatus.FORBIDDEN);
+        }
+        synchronized (queue) {
+            if (!isAdmitted(queue, userId)) {
+                throw new ApiException("Join the flash sale queue before ordering", HttpStatus.FORBIDDEN);
+            }
+            Instant until = queue.admitted.remove(userId);
+            afterRollback(() -> {
+                synchronized (queue) {
+                    queue.admitted.putIfAbsent(userId, until);
+                }
+            });
+        }
+    }
+
+    /**
+     * A reservation for the product succeeded in the caller's transaction; answer
+     * "sold out" from memory straight away if it took the last of the stock.
+     */
+    public void onReserved(Long productId) {
+        AdmissionQueue queue = queues.get(productId);
+        if (queue == null || queue.soldOut) {
+            return;
+        }
+        if (productRepository.findStockById(productId).map(stock -> stock <= 0).orElse(false)) {
+            queue.soldOut = true;
+            afterRollback(() -> queue.soldOut = false);
+        }
+    }
+
+    /**
+     * A reservation for the product failed; stop admitting if nothing is left.
+     */
+    public void onShortage(Long productId) {
+        AdmissionQueue queue = queues.get(productId);
+        if (queue != null && !queue.soldOut) {
+            queue.soldOut = productRepository.findStockById(productId).map(stock -> stock <= 0).orElse(false);
+        }
+    }
+
+    /**
+     * Stock came back, from an expired reservation or an admin restock; resume
+     * admitting.
+     */
+    public void onRestock(Long productId) {
+        AdmissionQueue queue = queues.get(productId);
+        if (queue != null) {
+            queue.soldOut = false;
+        }
+    }
+
+    @Scheduled(fixedRate = 1000)
+    public void admit() {
+        Instant now = Instant.now();
+        for (Iterator<Map.Entry<Long, AdmissionQueue>> it = queues.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<Long, AdmissionQueue> entry = it.next();
+            Integer rate = catalogService.getProduct(entry.getKey())
+                    .map(ProductResponseItem::getFlashSaleRate).orElse(null);
+            if (rate == null) {
+                // The sale ended; the product is ordered normally again
+                it.remove();
+                continue;
+            }
+            AdmissionQueue queue = entry.getValue();
+            synchronized (queue) {
+                queue.admitted.values().removeIf(until -> until.isBefore(now));
+                if (queue.soldOut) {
+                    continue;
+                }
+                for (int i = 0; i < rate && !queue.waiting.isEmpty(); i++) {
+                    Long userId = queue.waiting.pollFirst();
+                    queue.admittedThrough = queue.tickets.remove(userId);
+                    queue.admitted.put(userId, now.plus(admissionTtl));
+                }
+            }
+        }
+    }
+
+    private static void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private FlashSaleStatusResponse statusLocked(AdmissionQueue queue, Long userId, Long productId, int rate) {
+        if (queue.soldOut) {
+            return new FlashSaleStatusResponse(productId, State.SOLD_OUT, null, null, null, null);
+        }
+        if (isAdmitted(queue, userId)) {
+            return new FlashSaleStatusResponse(productId, State.ADMITTED, null, null,
+                    queue.admitted.get(userId), null);
+        }
+        Long ticket = queue.tickets.get(userId);
+        if (ticket == null) {
+            return new FlashSaleStatusResponse(productId, State.NOT_QUEUED, null, null, null, null);
+        }
+        long position = ticket - queue.admittedThrough;
+        long waitSeconds = (position + rate - 1) / rate;
+        // Poll roughly when the user is due, but no less than once a second
+        long retryAfterMs = Math.max(1000, Math.min(waitSeconds * 500, 30_000));
+        return new FlashSaleStatusResponse(productId, State.WAITING, position, waitSeconds, null, retryAfterMs);
+    }
+
+    private boolean isAdmitted(AdmissionQueue queue, Long userId) {
+        Instant until = queue.admitted.get(userId);
+        return until != null && until.isAfter(Instant.now());
+    }
+
+    private int rateOf(Long productId) {
+        ProductResponseItem product = catalogService.getProduct(productId)
+                .orElseThrow(() -> new ApiException("Product not found", HttpStatus.NOT_FOUND));
+        if (product.getFlashSaleRate() == null) {
+            throw new ApiException("Product is not in a flash sale", HttpStatus.BAD_REQUEST);
+        }
+        return product.getFlashSaleRate();
+    }
+}
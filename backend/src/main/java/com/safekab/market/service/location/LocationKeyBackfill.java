@@ -0,0 +1,117 @@
+package com.safekab.market.service.location;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.safekab.market.repository.location.LocationAddressRepository;
+import com.safekab.market.repository.location.LocationAddressRepository.KeyedLocation;
+
+/**
+ * Gives address keys to locations saved before they existed, merging each user's
+ * duplicate addresses into one row as it goes. Works through locations in id order,
+ * one short transaction per batch, and stops checking once a pass completes: new
+ * locations are always keyed.
+ */
+@Service
+public class LocationKeyBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationKeyBackfill.class);
+
+    private record UserAddress(Long userId, String addressKey) {
+    }
+
+    private final LocationAddressRepository locationAddressRepository;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+    private volatile boolean done;
+
+    public LocationKeyBackfill(LocationAddressRepository locationAddressRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.locations.backfill-batch-size:500}") int batchSize) {
+        this.locationAddressRepository = locationAddressRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${app.locations.backfill-delay:15000}",
+            fixedDelayString = "${app.locations.backfill-interval:600000}")
+    public void backfill() {
+        if (done) {
+            return;
+        }
+        long afterId = 0;
+        int keyed = 0;
+        int merged = 0;
+        List<KeyedLocation> batch;
+        try {
+            do {
+                batch = locationAddressRepository.findUnkeyed(afterId, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                List<KeyedLocation> locations = batch;
+                int duplicates = transaction.execute(status -> keyAndMerge(locations));
+                keyed += batch.size() - duplicates;
+                merged += duplicates;
+                afterId = batch.getLast().id();
+            } while (batch.size() == batchSize);
+        } catch (DataAccessException e) {
+            log.warn("Location key backfill failed after location {}; retrying on the next run", afterId, e);
+            return;
+        }
+        if (keyed > 0 || merged > 0) {
+            log.info("Keyed {} locations and merged {} duplicate addresses into them", keyed, merged);
+        }
+        done = true;
+    }
+
+    // Keeps the already keyed location for an address, else the oldest; returns how many were merged
+    private int keyAndMerge(List<KeyedLocation> batch) {
+        Map<UserAddress, List<Long>> idsByAddress = new LinkedHashMap<>();
+        for (KeyedLocation location : batch) {
+            idsByAddress.computeIfAbsent(new UserAddress(location.userId(), location.addressKey()),
+                    address -> new ArrayList<>()).add(location.id());
+        }
+        List<UserAddress> addresses = List.copyOf(idsByAddress.keySet());
+        Map<UserAddress, Long> keptIds = new HashMap<>();
+        for (KeyedLocation existing : locationAddressRepository.findKeyed(
+                addresses.stream().map(UserAddress::userId).toList(),
+                addresses.stream().map(UserAddress::addressKey).toList())) {
+            keptIds.put(new UserAddress(existing.userId(), existing.addressKey()), existing.id());
+        }
+
+        Map<Long, Long> keepByDuplicate = new HashMap<>();
+        List<Long> toKey = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        idsByAddress.forEach((address, ids) -> {
+            Long keep = keptIds.get(address);
+            if (keep == null) {
+                keep = ids.getFirst();
+                toKey.add(keep);
+                keys.add(address.addressKey());
+            }
+            for (Long id : ids) {
+                if (!id.equals(keep)) {
+                    keepByDuplicate.put(id, keep);
+                }
+            }
+        });
+        locationAddressRepository.merge(keepByDuplicate);
+        if (!toKey.isEmpty()) {
+            locationAddressRepository.setKeys(toKey, keys);
+        }
+        return keepByDuplicate.size();
+    }
+}
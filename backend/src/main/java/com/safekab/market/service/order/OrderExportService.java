@@ -0,0 +1,100 @@
+package com.safekab.market.service.order;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.safekab.market.dto.order.AdminOrderFilter;
+import com.safekab.market.dto.order.ExportFormat;
+import com.safekab.market.dto.order.OrderExportRow;
+import com.safekab.market.repository.order.OrderExportRepository;
+
+/**
+ * Writes order exports row by row as they are read from the database cursor, so
+ * memory use does not grow with the size of the export.
+ */
+@Service
+public class OrderExportService {
+
+    private final OrderExportRepository orderExportRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter rowWriter;
+
+    public OrderExportService(OrderExportRepository orderExportRepository,
+            PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.orderExportRepository = orderExportRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Closing the generator after each row must neither close nor flush the
+        // buffered writer, or every row would go out as its own chunk
+        this.rowWriter = objectMapper.writerFor(OrderExportRow.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+    }
+
+    public void export(AdminOrderFilter filter, ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        Consumer<OrderExportRow> sink = format == ExportFormat.CSV ? row -> writeCsv(writer, row)
+                : row -> writeJson(writer, row);
+        if (format == ExportFormat.CSV) {
+            writer.write(OrderExportRow.CSV_HEADER);
+            writer.write('\n');
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> orderExportRepository.forEach(filter, sink));
+        } catch (UncheckedIOException e) {
+            // The client went away mid-export
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeJson(Writer writer, OrderExportRow row) {
+        try {
+            rowWriter.writeValue(writer, row);
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeCsv(Writer writer, OrderExportRow row) {
+        try {
+            writer.write(String.join(",", String.valueOf(row.id()), String.valueOf(row.orderDate()),
+                    String.valueOf(row.userId()), csv(row.email()), row.paymentStatus().name(),
+                    row.trackingStatus().name(), csv(row.itemCount()), csv(row.subtotalNet()), csv(row.vatTotal()),
+                    csv(row.shippingCost()), csv(row.totalPrice()), csv(row.promotionCode())));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Quotes values containing separators; a leading formula character is escaped so
+    // spreadsheets do not evaluate user-supplied text
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0 && !(value instanceof Number)) {
+            text = "'" + text;
+        }
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
@@ -0,0 +1,74 @@
+package com.safekab.market.service.order;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.safekab.market.repository.order.OrderBackfillRepository;
+
+/**
+ * Fills in price snapshots and stored totals on orders placed before they were
+ * recorded. Works through orders in id order, one short transaction per batch, and
+ * stops checking once a pass finds nothing left: new orders always store totals.
+ */
+@Service
+public class OrderTotalsBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderTotalsBackfill.class);
+
+    private final OrderBackfillRepository orderBackfillRepository;
+    private final TransactionTemplate transaction;
+    private final int batchSize;
+    private volatile boolean done;
+
+    public OrderTotalsBackfill(OrderBackfillRepository orderBackfillRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.orders.backfill-batch-size:500}") int batchSize) {
+        this.orderBackfillRepository = orderBackfillRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${app.orders.backfill-delay:10000}",
+            fixedDelayString = "${app.orders.backfill-interval:600000}")
+    public void backfill() {
+        if (done) {
+            return;
+        }
+        long afterId = 0;
+        int stored = 0;
+        int skipped = 0;
+        List<Long> ids;
+        try {
+            do {
+                ids = orderBackfillRepository.findIdsWithoutTotals(afterId, batchSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                List<Long> batch = ids;
+                int updated = transaction.execute(status -> {
+                    orderBackfillRepository.snapshotLinePrices(batch);
+                    return orderBackfillRepository.storeTotals(batch);
+                });
+                stored += updated;
+                skipped += batch.size() - updated;
+                afterId = batch.getLast();
+            } while (ids.size() == batchSize);
+        } catch (DataAccessException e) {
+            log.warn("Order totals backfill failed after order {}; retrying on the next run", afterId, e);
+            return;
+        }
+        if (stored > 0 || skipped > 0) {
+            log.info("Backfilled totals for {} orders; {} could not be priced", stored, skipped);
+        }
+        // Orders that could not be priced (lines without a product) are retried next run
+        done = skipped == 0;
+    }
+}
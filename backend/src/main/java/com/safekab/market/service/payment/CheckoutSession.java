@@ -0,0 +1,17 @@
+package com.safekab.market.service.payment;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * A hosted checkout page started with the payment provider.
+ */
+public record CheckoutSession(String id, String url, LocalDateTime expiresAt) {
+
+    /**
+     * Whether the customer would still have {@code margin} to pay if sent here now.
+     */
+    public boolean usableFor(Duration margin) {
+        return url != null && expiresAt != null && expiresAt.isAfter(LocalDateTime.now().plus(margin));
+    }
+}
@@ -0,0 +1,40 @@
+package com.safekab.market.service.payment;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Checkout sessions recently started on this node, by order. An order's lines and
+ * shipping are fixed once it is placed, so a cached session stays valid for the
+ * order until it expires or the order is paid. Payment evicts the entry only on the
+ * node that applied it; callers check the stored payment status on a hit.
+ */
+@Component
+public class CheckoutSessionCache {
+
+    private static final int CAPACITY = 10_000;
+
+    // Least recently used first
+    private final Map<Long, CheckoutSession> sessions = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, CheckoutSession> eldest) {
+                    return size() > CAPACITY;
+                }
+            });
+
+    public CheckoutSession get(Long orderId) {
+        return sessions.get(orderId);
+    }
+
+    public void put(Long orderId, CheckoutSession session) {
+        sessions.put(orderId, session);
+    }
+
+    public void evict(Long orderId) {
+        sessions.remove(orderId);
+    }
+}
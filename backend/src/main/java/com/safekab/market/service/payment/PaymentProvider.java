@@ -6,10 +6,23 @@ import com.safekab.market.entity.Order;
 
 public interface PaymentProvider {
 
-    String createPayment(Order order);
+    /**
+     * Start a hosted checkout for the order.
+     */
+    CheckoutSession createPayment(Order order);
 
     boolean confirmPayment(String paymentIntentId);
 
-    void handleWebHook(String payload, Map<String, String> headers);
+    /**
+     * Check a webhook's signature and read its envelope. Throws 400 when the
+     * webhook is not authentic.
+     */
+    WebhookEvent verifyWebhook(String payload, Map<String, String> headers);
+
+    /**
+     * Apply a verified webhook event. Runs in the caller's transaction and may be
+     * called more than once for the same event.
+     */
+    void processWebhook(WebhookEvent event);
 
 }
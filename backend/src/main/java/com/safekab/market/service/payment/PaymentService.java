@@ -1,34 +1,111 @@
 package com.safekab.market.service.payment;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.safekab.market.entity.Order;
+import com.safekab.market.entity.PaymentStatus;
 import com.safekab.market.repository.OrderRepository;
+import com.safekab.market.service.stock.StockReservationService;
 
 @Service
 public class PaymentService {
 
     private final PaymentProvider paymentProvider;
     private final OrderRepository orderRepository;
+    private final StockReservationService stockReservationService;
+    private final WebhookInbox webhookInbox;
+    private final CheckoutSessionCache checkoutSessionCache;
+    private final Duration reuseMargin;
+    // Checkouts being started, so a double click waits for the first one
+    private final Map<Long, CompletableFuture<CheckoutSession>> starting = new ConcurrentHashMap<>();
 
-    public PaymentService(PaymentProvider paymentProvider, OrderRepository orderRepository) {
+    public PaymentService(PaymentProvider paymentProvider, OrderRepository orderRepository,
+            StockReservationService stockReservationService, WebhookInbox webhookInbox,
+            CheckoutSessionCache checkoutSessionCache,
+            @Value("${app.payment.checkout.reuse-margin:600000}") long reuseMarginMs) {
         this.paymentProvider = paymentProvider;
         this.orderRepository = orderRepository;
+        this.stockReservationService = stockReservationService;
+        this.webhookInbox = webhookInbox;
+        this.checkoutSessionCache = checkoutSessionCache;
+        this.reuseMargin = Duration.ofMillis(reuseMarginMs);
     }
 
+    /**
+     * Return a checkout URL for the order: the session already started for it while
+     * it has time left, otherwise a new one.
+     */
     public String createPayment(Long orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new IllegalArgumentException("Invalid order ID"));
-        return paymentProvider.createPayment(order);
+        CheckoutSession cached = checkoutSessionCache.get(orderId);
+        if (cached != null && cached.usableFor(reuseMargin)) {
+            // Paying evicts only the cache on the node that applied the webhook, so a
+            // hit is checked against the stored status with one primary key lookup
+            if (orderRepository.findPaymentStatusById(orderId).orElse(null) != PaymentStatus.PAID) {
+                return cached.url();
+            }
+            checkoutSessionCache.evict(orderId);
+        }
+        CompletableFuture<CheckoutSession> mine = new CompletableFuture<>();
+        CompletableFuture<CheckoutSession> running = starting.putIfAbsent(orderId, mine);
+        if (running != null) {
+            try {
+                return running.join().url();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            CheckoutSession session = startCheckout(orderId);
+            mine.complete(session);
+            return session.url();
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            starting.remove(orderId, mine);
+        }
     }
 
     public boolean confirmPayment(String paymentIntentId) {
         return paymentProvider.confirmPayment(paymentIntentId);
     }
 
+    /**
+     * Verify and store a webhook; it is applied asynchronously by the inbox workers.
+     */
     public void handleWebhook(String payload, Map<String, String> headers) {
-        paymentProvider.handleWebHook(payload, headers);
+        webhookInbox.receive(payload, headers);
+    }
+
+    private CheckoutSession startCheckout(Long orderId) {
+        Order order = orderRepository.findWithLinesById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Invalid order ID"));
+        String contentHash = order.contentHash();
+        CheckoutSession stored = new CheckoutSession(order.getCheckoutSessionId(), order.getCheckoutUrl(),
+                order.getCheckoutExpiresAt());
+        // Started on another node, or before a restart
+        if (order.getPaymentStatus() != PaymentStatus.PAID && contentHash.equals(order.getCheckoutHash())
+                && stored.usableFor(reuseMargin)) {
+            checkoutSessionCache.put(orderId, stored);
+            return stored;
+        }
+        // Checkout gets a full reservation TTL, so the session never outlives the held stock
+        LocalDateTime expiresAt = stockReservationService.renew(orderId);
+        if (expiresAt != null) {
+            order.setReservationExpiresAt(expiresAt);
+        }
+        CheckoutSession session = paymentProvider.createPayment(order);
+        orderRepository.updateCheckoutSession(orderId, session.id(), session.url(), session.expiresAt(),
+                contentHash);
+        checkoutSessionCache.put(orderId, session);
+        return session;
     }
 }
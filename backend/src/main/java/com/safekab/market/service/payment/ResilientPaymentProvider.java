@@ -0,0 +1,232 @@
+package com.safekab.market.service.payment;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+
+import com.safekab.market.entity.Order;
+import com.safekab.market.exception.ApiException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Guards calls to a payment provider's API.
+ *
+ * Each call runs on its own virtual thread and the caller waits for it no longer
+ * than the deadline. A semaphore bulkhead caps calls in flight, counting calls
+ * whose caller already gave up, and callers that cannot get a permit within the
+ * queue timeout are refused with 503; a slow provider therefore holds a bounded
+ * number of request threads. After a run of failures the circuit opens and calls
+ * fail fast with 503; once the open period ends a single trial call decides
+ * whether it closes again. Webhook verification and processing do not call the
+ * provider and pass straight through.
+ */
+public class ResilientPaymentProvider implements PaymentProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilientPaymentProvider.class);
+
+    public record Limits(Duration deadline, int maxConcurrent, Duration queueTimeout, int failureThreshold,
+            Duration openDuration) {
+    }
+
+    private enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final PaymentProvider delegate;
+    private final Limits limits;
+    private final MeterRegistry registry;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore bulkhead;
+    private final Timer queueTimer;
+
+    // Circuit breaker state, guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    private ResilientPaymentProvider(PaymentProvider delegate, Limits limits, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.limits = limits;
+        this.registry = registry;
+        this.bulkhead = new Semaphore(limits.maxConcurrent());
+        this.queueTimer = Timer.builder("payment.provider.queue")
+                .description("Time waiting for a payment provider bulkhead permit")
+                .register(registry);
+    }
+
+    /**
+     * Wrap {@code delegate} and register its gauges. The circuit gauge holds the
+     * provider, so it is registered once construction has finished.
+     */
+    public static ResilientPaymentProvider create(PaymentProvider delegate, Limits limits, MeterRegistry registry) {
+        ResilientPaymentProvider provider = new ResilientPaymentProvider(delegate, limits, registry);
+        Gauge.builder("payment.provider.in_flight", provider.bulkhead,
+                b -> limits.maxConcurrent() - b.availablePermits())
+                .register(registry);
+        Gauge.builder("payment.provider.circuit", provider, ResilientPaymentProvider::stateOrdinal)
+                .description("0 closed, 1 half open, 2 open")
+                .register(registry);
+        return provider;
+    }
+
+    @Override
+    public CheckoutSession createPayment(Order order) {
+        return call("create_payment", () -> delegate.createPayment(order));
+    }
+
+    @Override
+    public boolean confirmPayment(String paymentIntentId) {
+        return call("confirm_payment", () -> delegate.confirmPayment(paymentIntentId));
+    }
+
+    @Override
+    public WebhookEvent verifyWebhook(String payload, Map<String, String> headers) {
+        return delegate.verifyWebhook(payload, headers);
+    }
+
+    @Override
+    public void processWebhook(WebhookEvent event) {
+        // Runs in the caller's transaction, so it must stay on the caller's thread
+        delegate.processWebhook(event);
+    }
+
+    private <T> T call(String operation, Callable<T> action) {
+        if (!allowCall()) {
+            reject(operation, "circuit_open");
+            throw new ApiException("Payment provider is unavailable; try again shortly", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        long queuedAt = System.nanoTime();
+        boolean permitted;
+        try {
+            permitted = bulkhead.tryAcquire(limits.queueTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            endTrial();
+            throw new ApiException("Payment request was interrupted", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        queueTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+        if (!permitted) {
+            endTrial();
+            reject(operation, "bulkhead_full");
+            throw new ApiException("Payment provider is busy; try again shortly", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        long startedAt = System.nanoTime();
+        String outcome = "success";
+        Future<T> future = executor.submit(() -> {
+            try {
+                return action.call();
+            } finally {
+                bulkhead.release();
+            }
+        });
+        try {
+            T result = future.get(limits.deadline().toNanos(), TimeUnit.NANOSECONDS);
+            onSuccess();
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            outcome = "timeout";
+            onFailure(operation);
+            throw new ApiException("Payment provider timed out", HttpStatus.GATEWAY_TIMEOUT);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ApiException || cause instanceof IllegalArgumentException) {
+                // Our request was refused; the provider itself answered normally
+                outcome = "refused";
+                onSuccess();
+                throw (RuntimeException) cause;
+            }
+            outcome = "error";
+            onFailure(operation);
+            throw cause instanceof RuntimeException runtime ? runtime : new RuntimeException(cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            outcome = "interrupted";
+            endTrial();
+            throw new ApiException("Payment request was interrupted", HttpStatus.SERVICE_UNAVAILABLE);
+        } finally {
+            Timer.builder("payment.provider.calls")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(registry)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized boolean allowCall() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < limits.openDuration().toNanos()) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    private synchronized void onSuccess() {
+        trialInFlight = false;
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            log.info("Payment provider recovered; closing the circuit");
+            state = State.CLOSED;
+        }
+    }
+
+    private synchronized void onFailure(String operation) {
+        trialInFlight = false;
+        // Calls that started before the circuit opened do not restart the open period
+        if (state == State.OPEN) {
+            return;
+        }
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= limits.failureThreshold()) {
+            log.warn("Payment provider failing ({} failed); opening the circuit for {}", operation,
+                    limits.openDuration());
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            consecutiveFailures = 0;
+        }
+    }
+
+    // A trial call that never reached the provider leaves the circuit half open
+    private synchronized void endTrial() {
+        trialInFlight = false;
+    }
+
+    private synchronized int stateOrdinal() {
+        return state.ordinal();
+    }
+
+    private void reject(String operation, String reason) {
+        Counter.builder("payment.provider.rejected")
+                .tag("operation", operation)
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+}
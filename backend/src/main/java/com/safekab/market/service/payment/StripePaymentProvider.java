@@ -1,9 +1,15 @@
 package com.safekab.market.service.payment;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 
 import com.safekab.market.entity.Location;
@@ -11,10 +17,11 @@ import com.safekab.market.entity.Order;
 import com.safekab.market.entity.OrderProduct;
 import com.safekab.market.entity.PaymentStatus;
 import com.safekab.market.entity.Product;
-import com.safekab.market.entity.User;
 import com.safekab.market.exception.ApiException;
 import com.safekab.market.repository.LocationRepository;
+import com.safekab.market.repository.location.LocationAddressRepository;
 import com.safekab.market.service.OrderService;
+import com.safekab.market.service.stock.StockReservationService;
 import com.stripe.Stripe;
 import com.stripe.exception.SignatureVerificationException;
 import com.stripe.exception.StripeException;
@@ -22,16 +29,24 @@ import com.stripe.model.Address;
 import com.stripe.model.Event;
 import com.stripe.model.PaymentIntent;
 import com.stripe.model.checkout.Session;
+import com.stripe.net.ApiResource;
 import com.stripe.net.Webhook;
 import com.stripe.param.checkout.SessionCreateParams;
 
 public class StripePaymentProvider implements PaymentProvider {
 
+  private static final Logger log = LoggerFactory.getLogger(StripePaymentProvider.class);
+
   private final String currency;
   private final String returnUrlBase;
   private final String endpointSecret;
   private final OrderService orderService;
   private final LocationRepository locationRepository;
+  private final LocationAddressRepository locationAddressRepository;
+  private final StockReservationService stockReservationService;
+
+  // Stripe rejects checkout sessions that expire sooner than 30 minutes after creation
+  private static final Duration MIN_SESSION_LIFETIME = Duration.ofMinutes(31);
 
   public StripePaymentProvider(
       String apiKey,
@@ -39,13 +54,17 @@ public class StripePaymentProvider implements PaymentProvider {
       String returnUrlBase,
       String endpointSecret,
       OrderService orderService,
-      LocationRepository locationRepository) {
+      LocationRepository locationRepository,
+      LocationAddressRepository locationAddressRepository,
+      StockReservationService stockReservationService) {
     Stripe.apiKey = apiKey;
     this.currency = currency;
     this.returnUrlBase = returnUrlBase;
     this.endpointSecret = endpointSecret;
     this.orderService = orderService;
     this.locationRepository = locationRepository;
+    this.locationAddressRepository = locationAddressRepository;
+    this.stockReservationService = stockReservationService;
   }
 
   // public int getPrice() {
@@ -53,7 +72,7 @@ public class StripePaymentProvider implements PaymentProvider {
   // }
 
   @Override
-  public String createPayment(Order order) {
+  public CheckoutSession createPayment(Order order) {
     if (order.getPaymentStatus() == PaymentStatus.PAID) {
       throw new IllegalArgumentException("Order is already paid");
     }
@@ -71,7 +90,7 @@ public class StripePaymentProvider implements PaymentProvider {
         SessionCreateParams.LineItem.PriceData priceData = SessionCreateParams.LineItem.PriceData
             .builder()
             .setCurrency(currency)
-            .setUnitAmount(product.getPrice())
+            .setUnitAmount(orderProduct.getChargedUnitPrice())
             .setProductData(productData)
             .build();
         SessionCreateParams.LineItem lineItem = SessionCreateParams.LineItem
@@ -112,6 +131,12 @@ public class StripePaymentProvider implements PaymentProvider {
               SessionCreateParams.ShippingAddressCollection.builder()
                   .addAllowedCountry(SessionCreateParams.ShippingAddressCollection.AllowedCountry.GB)
                   .build());
+      if (order.getReservationExpiresAt() != null) {
+        // Expire checkout with the stock reservation; the expired event releases it
+        Instant expiresAt = order.getReservationExpiresAt().atZone(ZoneId.systemDefault()).toInstant();
+        Instant earliest = Instant.now().plus(MIN_SESSION_LIFETIME);
+        paramsBuilder.setExpiresAt((expiresAt.isAfter(earliest) ? expiresAt : earliest).getEpochSecond());
+      }
       // .setAllowPromotionCodes(true);
       // .setAutomaticTax(SessionCreateParams.AutomaticTax.builder().setEnabled(true).build());
       // if (order.getPromotionCode() != null) {
@@ -120,7 +145,10 @@ public class StripePaymentProvider implements PaymentProvider {
       // .build());
       // }
       Session session = Session.create(paramsBuilder.build());
-      return session.getUrl();
+      return new CheckoutSession(session.getId(), session.getUrl(),
+          session.getExpiresAt() != null
+              ? LocalDateTime.ofInstant(Instant.ofEpochSecond(session.getExpiresAt()), ZoneId.systemDefault())
+              : null);
     } catch (StripeException e) {
       throw new RuntimeException("Stripe checkout session creation failed", e);
     }
@@ -148,26 +176,17 @@ public class StripePaymentProvider implements PaymentProvider {
             address = customerDetails.getAddress();
           }
           Address finalAddress = address;
-          orderService.findByIdWithoutVerification(orderId).ifPresent(order -> {
-            order.setPaymentStatus(PaymentStatus.PAID);
+          // Only the delivery that actually pays the order goes further
+          orderService.markPaid(orderId).ifPresent(order -> {
             if (finalAddress != null) {
-              User user = order.getUser();
-              Location location = locationRepository.findByAddressAndUser(
-                  finalAddress.getLine1(),
-                  finalAddress.getLine2(),
-                  finalAddress.getCity(),
-                  finalAddress.getPostalCode(),
-                  finalAddress.getCountry(),
-                  user).orElseGet(() -> {
-                    Location newLoc = new Location();
-                    newLoc.setLine1(finalAddress.getLine1());
-                    newLoc.setLine2(finalAddress.getLine2());
-                    newLoc.setCity(finalAddress.getCity());
-                    newLoc.setPostalCode(finalAddress.getPostalCode());
-                    newLoc.setCountry(finalAddress.getCountry());
-                    newLoc.setUser(user);
-                    return locationRepository.save(newLoc);
-                  });
+              Location shipTo = new Location();
+              shipTo.setLine1(finalAddress.getLine1());
+              shipTo.setLine2(finalAddress.getLine2());
+              shipTo.setCity(finalAddress.getCity());
+              shipTo.setPostalCode(finalAddress.getPostalCode());
+              shipTo.setCountry(finalAddress.getCountry());
+              Long locationId = locationAddressRepository.findOrInsert(order.getUser().getId(), shipTo);
+              Location location = locationRepository.getReferenceById(locationId);
               order.setShipmentLocation(location);
             }
             order.setPromotionCode(session.getDiscounts() != null &&
@@ -175,28 +194,78 @@ public class StripePaymentProvider implements PaymentProvider {
                     ? session.getDiscounts().getFirst().getPromotionCode()
                     : null);
             orderService.save(order);
+            stockReservationService.commit(orderId);
           });
         } catch (NumberFormatException ex) {
-          System.err.println("Invalid order_id in Stripe session metadata: " + orderIdStr);
+          log.warn("Invalid order_id in Stripe session metadata: {}", orderIdStr);
         }
       }
     }
   }
 
+  private void handleExpiredSession(Session session) {
+    if (session == null || session.getMetadata() == null) {
+      return;
+    }
+    String orderIdStr = session.getMetadata().get("order_id");
+    if (orderIdStr != null) {
+      try {
+        // A reservation renewed for a newer session expires later and is left alone
+        LocalDateTime expiredBy = LocalDateTime.ofInstant(Instant.ofEpochSecond(session.getExpiresAt()),
+            ZoneId.systemDefault());
+        stockReservationService.release(Long.valueOf(orderIdStr), expiredBy);
+      } catch (NumberFormatException ex) {
+        log.warn("Invalid order_id in Stripe session metadata: {}", orderIdStr);
+      }
+    }
+  }
+
   @Override
-  public void handleWebHook(String payload, Map<String, String> headers) {
+  public WebhookEvent verifyWebhook(String payload, Map<String, String> headers) {
+    String header = headers.get("stripe-signature");
+    if (header == null) {
+      throw new ApiException("Missing Stripe-Signature header", HttpStatus.BAD_REQUEST);
+    }
+    Event event;
     try {
-      String header = headers.get("stripe-signature");
-      if (header == null) {
-        throw new ApiException("Missing Stripe-Signature header", HttpStatus.BAD_REQUEST);
-      }
-      Event event = Webhook.constructEvent(payload, header, endpointSecret);
-      if ("checkout.session.completed".equals(event.getType())) {
-        Session session = (Session) event.getDataObjectDeserializer().getObject().orElse(null);
-        handleWebHookHelper(session);
-      }
+      event = Webhook.constructEvent(payload, header, endpointSecret);
     } catch (SignatureVerificationException | NullPointerException e) {
       throw new ApiException("Stripe webhook signature verification failed", HttpStatus.BAD_REQUEST);
     }
+    if (event.getId() == null || event.getType() == null) {
+      throw new ApiException("Stripe webhook is missing its event id or type", HttpStatus.BAD_REQUEST);
+    }
+    Session session = sessionOf(event);
+    return new WebhookEvent(event.getId(), event.getType(), session != null ? session.getId() : null,
+        orderIdOf(session), payload);
+  }
+
+  @Override
+  public void processWebhook(WebhookEvent webhook) {
+    // The signature was checked when the event was received
+    Event event = ApiResource.GSON.fromJson(webhook.payload(), Event.class);
+    if ("checkout.session.completed".equals(event.getType())) {
+      handleWebHookHelper(sessionOf(event));
+    } else if ("checkout.session.expired".equals(event.getType())) {
+      handleExpiredSession(sessionOf(event));
+    }
+  }
+
+  private static Session sessionOf(Event event) {
+    if (!event.getType().startsWith("checkout.session.")) {
+      return null;
+    }
+    return (Session) event.getDataObjectDeserializer().getObject().orElse(null);
+  }
+
+  private static Long orderIdOf(Session session) {
+    if (session == null || session.getMetadata() == null || session.getMetadata().get("order_id") == null) {
+      return null;
+    }
+    try {
+      return Long.valueOf(session.getMetadata().get("order_id"));
+    } catch (NumberFormatException e) {
+      return null;
+    }
   }
 }
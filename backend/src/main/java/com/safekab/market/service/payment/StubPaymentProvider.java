@@ -0,0 +1,182 @@
+package com.safekab.market.service.payment;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.safekab.market.entity.Order;
+import com.stripe.Stripe;
+
+/**
+ * Offline stand-in for Stripe, for load and soak tests.
+ *
+ * Checkout calls take a log-normally distributed time and fail at a set rate. Each
+ * started checkout is later "completed" (or, at the abandon rate, expired) by a
+ * Stripe-format event signed with the webhook secret and posted to our own webhook
+ * endpoint, sometimes more than once. Webhooks are verified and applied by the
+ * Stripe provider, so the whole order, payment and webhook pipeline runs as it
+ * would against Stripe.
+ */
+public class StubPaymentProvider implements PaymentProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(StubPaymentProvider.class);
+
+    /**
+     * A log-normal distribution given by its median and the standard deviation of
+     * its logarithm; sigma 0 always gives the median.
+     */
+    public record Latency(Duration median, double sigma) {
+
+        Duration sample() {
+            double z = ThreadLocalRandom.current().nextGaussian();
+            return Duration.ofNanos((long) (median.toNanos() * Math.exp(sigma * z)));
+        }
+    }
+
+    public record Behaviour(Latency checkoutLatency, Latency webhookDelay, double failureRate,
+            double duplicateRate, double abandonRate) {
+    }
+
+    private final PaymentProvider webhooks;
+    private final Behaviour behaviour;
+    private final URI webhookUrl;
+    private final String returnUrlBase;
+    private final byte[] endpointSecret;
+    private final Duration sessionLifetime = Duration.ofMinutes(31);
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "stub-payment-webhooks");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param webhooks verifies and applies the Stripe-format events this stub sends
+     */
+    public StubPaymentProvider(PaymentProvider webhooks, Behaviour behaviour, String webhookUrl,
+            String returnUrlBase, String endpointSecret) {
+        this.webhooks = webhooks;
+        this.behaviour = behaviour;
+        this.webhookUrl = URI.create(webhookUrl);
+        this.returnUrlBase = returnUrlBase;
+        this.endpointSecret = endpointSecret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public CheckoutSession createPayment(Order order) {
+        pause(behaviour.checkoutLatency().sample());
+        failSometimes();
+        String sessionId = "cs_stub_" + UUID.randomUUID().toString().replace("-", "");
+        LocalDateTime reservedUntil = order.getReservationExpiresAt();
+        LocalDateTime earliest = LocalDateTime.now().plus(sessionLifetime);
+        LocalDateTime expiresAt = reservedUntil != null && reservedUntil.isAfter(earliest) ? reservedUntil : earliest;
+
+        boolean abandoned = ThreadLocalRandom.current().nextDouble() < behaviour.abandonRate();
+        String type = abandoned ? "checkout.session.expired" : "checkout.session.completed";
+        String payload = event(type, sessionId, order.getId(), expiresAt);
+        int deliveries = ThreadLocalRandom.current().nextDouble() < behaviour.duplicateRate() ? 2 : 1;
+        for (int i = 0; i < deliveries; i++) {
+            scheduler.schedule(() -> deliver(payload), behaviour.webhookDelay().sample().toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+        return new CheckoutSession(sessionId, "%s/checkout/success/%s".formatted(returnUrlBase, order.getId()),
+                expiresAt);
+    }
+
+    @Override
+    public boolean confirmPayment(String paymentIntentId) {
+        pause(behaviour.checkoutLatency().sample());
+        failSometimes();
+        return true;
+    }
+
+    @Override
+    public WebhookEvent verifyWebhook(String payload, Map<String, String> headers) {
+        return webhooks.verifyWebhook(payload, headers);
+    }
+
+    @Override
+    public void processWebhook(WebhookEvent event) {
+        webhooks.processWebhook(event);
+    }
+
+    private String event(String type, String sessionId, Long orderId, LocalDateTime expiresAt) {
+        long expires = expiresAt.atZone(ZoneId.systemDefault()).toEpochSecond();
+        return """
+                {"id": "evt_stub_%s", "object": "event", "api_version": "%s", "created": %d, "type": "%s",
+                 "data": {"object": {"id": "%s", "object": "checkout.session", "expires_at": %d,
+                   "metadata": {"order_id": "%d"},
+                   "customer_details": {"address": {"line1": "1 Stub Street", "city": "London",
+                                                    "postal_code": "SW1A 1AA", "country": "GB"}}}}}
+                """.formatted(UUID.randomUUID().toString().replace("-", ""), Stripe.API_VERSION,
+                Instant.now().getEpochSecond(), type, sessionId, expires, orderId);
+    }
+
+    private void deliver(String payload) {
+        HttpRequest request = HttpRequest.newBuilder(webhookUrl)
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .header("Stripe-Signature", sign(payload))
+                .POST(HttpRequest.BodyPublishers.ofString(payload))
+                .build();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            if (error != null) {
+                log.warn("Stub payment webhook delivery failed", error);
+            } else if (response.statusCode() >= 300) {
+                log.warn("Stub payment webhook refused with {}", response.statusCode());
+            }
+        });
+    }
+
+    // Stripe's scheme: HMAC-SHA256 of "timestamp.payload" with the endpoint secret
+    private String sign(String payload) {
+        long timestamp = Instant.now().getEpochSecond();
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(endpointSecret, "HmacSHA256"));
+            byte[] signature = mac.doFinal((timestamp + "." + payload).getBytes(StandardCharsets.UTF_8));
+            return "t=" + timestamp + ",v1=" + HexFormat.of().formatHex(signature);
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void failSometimes() {
+        if (ThreadLocalRandom.current().nextDouble() < behaviour.failureRate()) {
+            throw new RuntimeException("Stub payment provider failure");
+        }
+    }
+
+    private static void pause(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the stub payment provider", e);
+        }
+    }
+}
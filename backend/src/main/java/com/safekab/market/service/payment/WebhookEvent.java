@@ -0,0 +1,9 @@
+package com.safekab.market.service.payment;
+
+/**
+ * A webhook whose signature has been checked. {@code objectId} is the provider's
+ * id for the object the event is about (e.g. the checkout session); it and
+ * {@code orderId} are null for events that do not concern one.
+ */
+public record WebhookEvent(String eventId, String type, String objectId, Long orderId, String payload) {
+}
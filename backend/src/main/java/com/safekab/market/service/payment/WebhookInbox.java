@@ -0,0 +1,198 @@
+package com.safekab.market.service.payment;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.safekab.market.dto.payment.WebhookEventResponse;
+import com.safekab.market.exception.ApiException;
+import com.safekab.market.repository.payment.WebhookInboxRepository;
+import com.safekab.market.repository.payment.WebhookInboxRepository.ClaimedEvent;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Durable inbox for payment webhooks.
+ *
+ * The webhook endpoint only verifies and stores an event, so the provider gets its
+ * 2xx as soon as the row is written. A fixed pool of workers applies stored events,
+ * claiming no more than it has idle threads for; an order's events are applied one
+ * at a time in arrival order. Failed events are retried with exponential backoff
+ * and marked DEAD after the last attempt. A worker that dies mid-event leaves a
+ * claim that lapses after the lease, and the event is applied again, so event
+ * handling must be idempotent.
+ */
+@Service
+public class WebhookInbox {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookInbox.class);
+    private static final int CLEANUP_BATCH_SIZE = 1000;
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final WebhookInboxRepository webhookInboxRepository;
+    private final PaymentProvider paymentProvider;
+    private final TransactionTemplate transaction;
+    private final int workers;
+    private final int maxAttempts;
+    private final long leaseMs;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+    private final long retentionMs;
+    private final ExecutorService executor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Dedupe keys of recently stored events, least recently seen first; a hit skips the insert
+    private final Map<String, Boolean> recent;
+
+    public WebhookInbox(WebhookInboxRepository webhookInboxRepository, PaymentProvider paymentProvider,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.payment.webhook.workers:4}") int workers,
+            @Value("${app.payment.webhook.max-attempts:10}") int maxAttempts,
+            @Value("${app.payment.webhook.lease:300000}") long leaseMs,
+            @Value("${app.payment.webhook.backoff:1000}") long backoffMs,
+            @Value("${app.payment.webhook.max-backoff:600000}") long maxBackoffMs,
+            @Value("${app.payment.webhook.retention:604800000}") long retentionMs,
+            @Value("${app.payment.webhook.recent-events:10000}") int recentEvents) {
+        this.webhookInboxRepository = webhookInboxRepository;
+        this.paymentProvider = paymentProvider;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.workers = workers;
+        this.maxAttempts = maxAttempts;
+        this.leaseMs = leaseMs;
+        this.backoffMs = backoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.retentionMs = retentionMs;
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > recentEvents;
+            }
+        });
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(workers,
+                task -> new Thread(task, "webhook-worker-" + threads.incrementAndGet()));
+    }
+
+    /**
+     * Verify a webhook and store it for processing. Redelivered events, and copies
+     * of an event already stored for the same object, are accepted and dropped;
+     * recent ones without touching the database.
+     */
+    public void receive(String payload, Map<String, String> headers) {
+        WebhookEvent event = paymentProvider.verifyWebhook(payload, headers);
+        String eventKey = "event:" + event.eventId();
+        String objectKey = event.objectId() != null ? event.type() + ":" + event.objectId() : null;
+        if (recent.get(eventKey) != null || (objectKey != null && recent.get(objectKey) != null)) {
+            log.debug("Ignoring recently seen webhook event {}", event.eventId());
+            return;
+        }
+        if (!webhookInboxRepository.insert(event)) {
+            log.debug("Ignoring redelivered webhook event {}", event.eventId());
+        }
+        // Stored either way, so later copies can be dropped from memory
+        recent.put(eventKey, Boolean.TRUE);
+        if (objectKey != null) {
+            recent.put(objectKey, Boolean.TRUE);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.payment.webhook.poll-interval:250}")
+    public void poll() {
+        try {
+            int idle;
+            while ((idle = workers - inFlight.get()) > 0) {
+                List<ClaimedEvent> claimed = webhookInboxRepository.claim(idle, leaseMs);
+                for (ClaimedEvent event : claimed) {
+                    inFlight.incrementAndGet();
+                    executor.execute(() -> process(event));
+                }
+                if (claimed.size() < idle) {
+                    return;
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to claim webhook events; retrying on the next run", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.payment.webhook.cleanup-interval:3600000}")
+    public void deleteProcessed() {
+        LocalDateTime before = LocalDateTime.now().minus(Duration.ofMillis(retentionMs));
+        try {
+            while (webhookInboxRepository.deleteDone(before, CLEANUP_BATCH_SIZE) == CLEANUP_BATCH_SIZE) {
+                // Short transactions; keep going until the backlog is gone
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to delete processed webhook events", e);
+        }
+    }
+
+    public List<WebhookEventResponse> findDead(int limit) {
+        return webhookInboxRepository.findDead(limit);
+    }
+
+    public void retry(Long id) {
+        if (!webhookInboxRepository.requeue(id)) {
+            throw new ApiException("Dead webhook event not found", HttpStatus.NOT_FOUND);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Events still running when this times out are picked up again once their lease lapses
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void process(ClaimedEvent claimed) {
+        try {
+            // Applying the event and marking it done commit together
+            transaction.executeWithoutResult(status -> {
+                paymentProvider.processWebhook(claimed.event());
+                webhookInboxRepository.markDone(claimed.id());
+            });
+        } catch (RuntimeException e) {
+            fail(claimed, e);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void fail(ClaimedEvent claimed, RuntimeException cause) {
+        String error = cause.toString();
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        try {
+            if (claimed.attempt() >= maxAttempts) {
+                log.error("Webhook event {} failed {} times; giving up", claimed.event().eventId(),
+                        claimed.attempt(), cause);
+                webhookInboxRepository.markDead(claimed.id(), error);
+            } else {
+                long delay = Math.min(maxBackoffMs, backoffMs << Math.min(claimed.attempt() - 1, 30));
+                log.warn("Webhook event {} failed on attempt {}; retrying in {} ms", claimed.event().eventId(),
+                        claimed.attempt(), delay, cause);
+                webhookInboxRepository.reschedule(claimed.id(), error, delay);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to record the failure of webhook event {}; it is retried once its lease lapses",
+                    claimed.event().eventId(), e);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.safekab.market.service.stock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.safekab.market.entity.Order;
+import com.safekab.market.entity.ReservationStatus;
+import com.safekab.market.exception.ApiException;
+import com.safekab.market.repository.OrderRepository;
+import com.safekab.market.repository.OrderRepository.OrderLine;
+import com.safekab.market.repository.ProductRepository;
+import com.safekab.market.service.flashsale.FlashSaleService;
+
+/**
+ * Holds stock for unpaid orders.
+ *
+ * An order reserves its quantities when it is created, the reservation becomes a
+ * sale when payment completes, and it is released when checkout expires or the
+ * reservation outlives its TTL. Each product row is decremented with one guarded
+ * UPDATE, taken in product id order and as late in the order transaction as
+ * possible, so row locks are held briefly and never in conflicting orders. Products
+ * that just failed a reservation are refused in memory for a short while, so a drop
+ * does not queue every late checkout on an already empty row.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationService.class);
+    private static final int RELEASE_BATCH_SIZE = 100;
+    private static final int RENEW_ATTEMPTS = 3;
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final FlashSaleService flashSaleService;
+    private final TransactionTemplate transaction;
+    private final Duration ttl;
+    private final Duration releaseGrace;
+    private final Duration soldOutHint;
+    private final Map<Long, Shortage> shortages = new ConcurrentHashMap<>();
+
+    // The smallest quantity a product recently failed to reserve
+    private record Shortage(int quantity, Instant until) {
+    }
+
+    public StockReservationService(OrderRepository orderRepository, ProductRepository productRepository,
+            FlashSaleService flashSaleService, PlatformTransactionManager transactionManager,
+            @Value("${app.stock.reservation-ttl:3600000}") long ttlMs,
+            @Value("${app.stock.release-grace:300000}") long releaseGraceMs,
+            @Value("${app.stock.sold-out-hint:2000}") long soldOutHintMs) {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.flashSaleService = flashSaleService;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.ttl = Duration.ofMillis(ttlMs);
+        this.releaseGrace = Duration.ofMillis(releaseGraceMs);
+        this.soldOutHint = Duration.ofMillis(soldOutHintMs);
+    }
+
+    /**
+     * Reserve stock for a new order inside the caller's transaction. Throws 409 if
+     * any product is short, which rolls back every decrement made so far.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Order order, Map<Long, Integer> quantities) {
+        reserveAll(quantities);
+        order.setReservationStatus(ReservationStatus.RESERVED);
+        order.setReservationExpiresAt(LocalDateTime.now().plus(ttl));
+    }
+
+    /**
+     * Called before starting checkout: pushes the expiry out by a full TTL, or takes
+     * the stock again if the reservation already lapsed. Returns the new expiry, or
+     * null when the order is not under reservation.
+     *
+     * The write is a compare-and-set on the status that was read, so a release or
+     * another renewal in between makes it re-read instead of marking the order
+     * reserved without stock, and only the renewal that moves a lapsed order back to
+     * RESERVED takes its stock.
+     */
+    public LocalDateTime renew(Long orderId) {
+        return transaction.execute(status -> {
+            for (int attempt = 0; attempt < RENEW_ATTEMPTS; attempt++) {
+                ReservationStatus current = orderRepository.findReservationStatusById(orderId).orElse(null);
+                if (current != ReservationStatus.RESERVED && current != ReservationStatus.RELEASED) {
+                    return null;
+                }
+                LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+                if (orderRepository.renewReservation(orderId, current, expiresAt) == 0) {
+                    continue;
+                }
+                if (current == ReservationStatus.RELEASED) {
+                    // A shortage throws and rolls the order back to RELEASED
+                    reserveAll(linesOf(orderId));
+                }
+                return expiresAt;
+            }
+            log.warn("Gave up renewing the reservation for order {} after {} conflicting updates", orderId,
+                    RENEW_ATTEMPTS);
+            return null;
+        });
+    }
+
+    /**
+     * Turn a reservation into a sale once payment has completed.
+     */
+    public void commit(Long orderId) {
+        transaction.executeWithoutResult(status -> {
+            if (orderRepository.transitionReservation(orderId, ReservationStatus.RESERVED,
+                    ReservationStatus.COMMITTED) == 1) {
+                return;
+            }
+            if (orderRepository.findReservationStatusById(orderId).orElse(null) != ReservationStatus.RELEASED) {
+                return;
+            }
+            // Paid after the reservation lapsed: take the stock again if it is still there
+            SortedMap<Long, Integer> lines = linesOf(orderId);
+            lines.forEach((productId, quantity) -> {
+                if (productRepository.reserveStock(productId, quantity) == 0) {
+                    log.warn("Order {} paid after its reservation expired; product {} is oversold by up to {}",
+                            orderId, productId, quantity);
+                }
+            });
+            orderRepository.transitionReservation(orderId, ReservationStatus.RELEASED, ReservationStatus.COMMITTED);
+        });
+    }
+
+    /**
+     * Return reserved stock for an order whose checkout expired. Does nothing if the
+     * reservation was renewed past {@code expiredBy}, e.g. when an older checkout
+     * session expires after the customer started a new one.
+     */
+    public void release(Long orderId, LocalDateTime expiredBy) {
+        transaction.executeWithoutResult(status -> {
+            if (orderRepository.releaseReservation(orderId, expiredBy) == 0) {
+                return;
+            }
+            linesOf(orderId).forEach((productId, quantity) -> {
+                productRepository.releaseStock(productId, quantity);
+                onRestock(productId);
+            });
+        });
+    }
+
+    /**
+     * A product's stock went up, from a release or an admin edit: forget that it
+     * recently ran short and resume flash-sale admissions.
+     */
+    public void onRestock(Long productId) {
+        shortages.remove(productId);
+        flashSaleService.onRestock(productId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.release-interval:60000}")
+    public void releaseExpired() {
+        LocalDateTime before = LocalDateTime.now().minus(releaseGrace);
+        List<Long> expired;
+        do {
+            expired = orderRepository.findIdsByReservationExpiredBefore(ReservationStatus.RESERVED, before,
+                    PageRequest.of(0, RELEASE_BATCH_SIZE));
+            for (Long orderId : expired) {
+                try {
+                    release(orderId, before);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to release reservation for order {}", orderId, e);
+                    return;
+                }
+            }
+        } while (expired.size() == RELEASE_BATCH_SIZE);
+        shortages.values().removeIf(shortage -> shortage.until().isBefore(Instant.now()));
+    }
+
+    private void reserveAll(Map<Long, Integer> quantities) {
+        Instant now = Instant.now();
+        List<Long> unavailable = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : new TreeMap<>(quantities).entrySet()) {
+            Long productId = line.getKey();
+            int quantity = line.getValue();
+            Shortage shortage = shortages.get(productId);
+            if (shortage != null && shortage.until().isAfter(now) && quantity >= shortage.quantity()) {
+                unavailable.add(productId);
+            } else if (productRepository.reserveStock(productId, quantity) == 0) {
+                shortages.merge(productId, new Shortage(quantity, now.plus(soldOutHint)),
+                        (old, failed) -> old.until().isAfter(now) && old.quantity() < quantity ? old : failed);
+                flashSaleService.onShortage(productId);
+                unavailable.add(productId);
+            } else {
+                flashSaleService.onReserved(productId);
+            }
+        }
+        if (!unavailable.isEmpty()) {
+            throw new ApiException("Insufficient stock for products: " + unavailable, HttpStatus.CONFLICT);
+        }
+    }
+
+    private SortedMap<Long, Integer> linesOf(Long orderId) {
+        SortedMap<Long, Integer> lines = new TreeMap<>();
+        for (OrderLine line : orderRepository.findLinesByOrderId(orderId)) {
+            lines.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,230 @@
+package com.safekab.market.controller;
+
+import static com.safekab.market.test.QueryBudget.statementsAtMost;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import com.safekab.market.dto.order.CreateOrderItem;
+import com.safekab.market.dto.order.CreateOrderRequest;
+import com.safekab.market.entity.Order;
+import com.safekab.market.entity.Product;
+import com.safekab.market.entity.User;
+import com.safekab.market.repository.OrderRepository;
+import com.safekab.market.repository.ProductRepository;
+import com.safekab.market.repository.UserRepository;
+import com.safekab.market.repository.cart.CartBatchRepository;
+import com.safekab.market.repository.cart.CartRepository;
+import com.safekab.market.service.OrderService;
+import com.safekab.market.service.cart.CartCache;
+import com.safekab.market.service.cart.CartService;
+import com.safekab.market.service.catalog.CatalogService;
+
+/**
+ * Statement budgets per endpoint, so N+1 regressions fail the build. Runs
+ * against the local database, like the rest of the suite.
+ */
+@SpringBootTest(properties = { "app.query-stats.headers=true", "app.cart.write-behind=true" })
+@AutoConfigureMockMvc
+class EndpointQueryBudgetTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private CartService cartService;
+    @Autowired
+    private CartCache cartCache;
+    @Autowired
+    private CartBatchRepository cartBatchRepository;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private CatalogService catalogService;
+
+    private User user;
+    private List<Product> products;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        user = new User();
+        user.setUsername("budget-" + suffix);
+        user.setEmail("budget-" + suffix + "@example.com");
+        user.setPassword("unused");
+        user = userRepository.save(user);
+
+        products = List.of(product("Budget A " + suffix), product("Budget B " + suffix),
+                product("Budget C " + suffix));
+        products.forEach(product -> catalogService.refreshProduct(product.getId()));
+        products.forEach(product -> cartService.deltaProductQuantity(user.getId(), product.getId(), 2));
+
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setItems(products.stream().map(product -> {
+            CreateOrderItem item = new CreateOrderItem();
+            item.setProductId(product.getId());
+            item.setQuantity(1);
+            return item;
+        }).toList());
+        order = orderService.createOrder(user.getId(), request);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cartCache.flush();
+        orderRepository.deleteAllById(orderRepository.findIdsByUserId(user.getId(), Pageable.unpaged()));
+        cartRepository.findByUser(user).ifPresent(cartRepository::delete);
+        products.forEach(product -> {
+            productRepository.deleteById(product.getId());
+            catalogService.refreshProduct(product.getId());
+        });
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void catalogReadsDoNotTouchTheDatabase() throws Exception {
+        mockMvc.perform(get("/api/products")).andExpect(status().isOk()).andExpect(statementsAtMost(0));
+        mockMvc.perform(get("/api/products/{id}", products.getFirst().getId()))
+                .andExpect(status().isOk()).andExpect(statementsAtMost(0));
+        mockMvc.perform(get("/api/products/search").param("q", "budget"))
+                .andExpect(status().isOk()).andExpect(statementsAtMost(0));
+    }
+
+    @Test
+    void productListingIsASingleStatement() throws Exception {
+        mockMvc.perform(get("/api/products").param("limit", "10").param("sort", "PRICE_ASC"))
+                .andExpect(status().isOk()).andExpect(statementsAtMost(1));
+    }
+
+    @Test
+    void cartEndpointsAreServedFromTheCartCache() throws Exception {
+        mockMvc.perform(get("/api/cart").with(asUser()))
+                .andExpect(status().isOk()).andExpect(statementsAtMost(0));
+        mockMvc.perform(post("/api/cart").with(asUser())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"product_id\": %d, \"quantity\": 1}".formatted(products.getFirst().getId())))
+                .andExpect(status().isNoContent()).andExpect(statementsAtMost(0));
+        mockMvc.perform(put("/api/cart").with(asUser())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"product_id\": %d, \"quantity\": 3}".formatted(products.getFirst().getId())))
+                .andExpect(status().isNoContent()).andExpect(statementsAtMost(0));
+        mockMvc.perform(post("/api/cart").with(asUser())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"product_id\": %d, \"quantity\": -5}".formatted(products.getFirst().getId())))
+                .andExpect(status().isNoContent()).andExpect(statementsAtMost(0));
+    }
+
+    @Test
+    void batchCartUpdateIsWrittenBehind() throws Exception {
+        String operations = products.stream()
+                .map(product -> "{\"product_id\": %d, \"delta\": 1}, {\"product_id\": %d, \"quantity\": 4}"
+                        .formatted(product.getId(), product.getId()))
+                .reduce((a, b) -> a + "," + b).orElseThrow();
+        mockMvc.perform(patch("/api/cart/batch").with(asUser())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"operations\": [" + operations + "]}"))
+                .andExpect(status().isOk()).andExpect(statementsAtMost(0));
+        mockMvc.perform(delete("/api/cart").with(asUser())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"products\": [%d, %d]}".formatted(products.get(0).getId(), products.get(1).getId())))
+                .andExpect(status().isNoContent()).andExpect(statementsAtMost(0));
+
+        // The next flush writes what the cache held
+        cartCache.flush();
+        assertEquals(Map.of(products.get(2).getId(), 4),
+                cartBatchRepository.findLines(cartBatchRepository.resolveCartId(user.getId())));
+    }
+
+    @Test
+    void orderEndpoints() throws Exception {
+        mockMvc.perform(get("/api/orders").with(asUser()))
+                .andExpect(status().isOk()).andExpect(statementsAtMost(3));
+        mockMvc.perform(get("/api/orders/{id}", order.getId()).with(asUser()))
+                .andExpect(status().isOk()).andExpect(statementsAtMost(1));
+        mockMvc.perform(get("/api/admin/orders").with(asAdmin())
+                .param("payment_status", "UNPAID").param("tracking_status", "NOT_SHIPPED"))
+                .andExpect(status().isOk()).andExpect(statementsAtMost(3));
+        // Keyset listing: one seek query and one graph fetch, no count
+        mockMvc.perform(get("/api/admin/orders").with(asAdmin())
+                .param("limit", "20").param("user_id", user.getId().toString()))
+                .andExpect(status().isOk()).andExpect(statementsAtMost(2))
+                .andExpect(jsonPath("$.orders[0].id").value(order.getId()))
+                .andExpect(jsonPath("$.next_cursor").doesNotExist());
+    }
+
+    @Test
+    void bulkTrackingUpdateIsOneStatement() throws Exception {
+        mockMvc.perform(patch("/api/admin/orders/batch").with(asAdmin())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"tracking_status\": \"SHIPPED\", \"order_ids\": [%d, -1]}".formatted(order.getId())))
+                .andExpect(status().isOk()).andExpect(statementsAtMost(1))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.results[0].outcome").value("UPDATED"))
+                .andExpect(jsonPath("$.results[1].outcome").value("NOT_FOUND"));
+    }
+
+    @Test
+    void orderCreationBatchesItsWrites() throws Exception {
+        String items = products.stream()
+                .map(product -> "{\"product_id\": %d, \"quantity\": 1}".formatted(product.getId()))
+                .reduce((a, b) -> a + "," + b).orElseThrow();
+        // products, user, config, one guarded stock update per product, sequence,
+        // order insert, one batched insert for all lines, one sales rollup upsert
+        mockMvc.perform(post("/api/orders").with(asUser())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"items\": [" + items + "]}"))
+                .andExpect(status().isOk()).andExpect(statementsAtMost(10));
+    }
+
+    private RequestPostProcessor asUser() {
+        return authentication(new UsernamePasswordAuthenticationToken(user.getId(), null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    private RequestPostProcessor asAdmin() {
+        return authentication(new UsernamePasswordAuthenticationToken(user.getId(), null,
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+    }
+
+    private Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription("Query budget fixture");
+        product.setNetPrice(1000L);
+        product.setVatRate(20);
+        product.setCurrency("gbp");
+        product.setStock(10);
+        return productRepository.save(product);
+    }
+}
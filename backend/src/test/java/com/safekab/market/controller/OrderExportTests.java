@@ -0,0 +1,118 @@
+package com.safekab.market.controller;
+
+import static com.safekab.market.test.MarketFixtures.orderOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.safekab.market.dto.order.AdminOrderFilter;
+import com.safekab.market.dto.order.ExportFormat;
+import com.safekab.market.entity.Order;
+import com.safekab.market.entity.Product;
+import com.safekab.market.entity.User;
+import com.safekab.market.service.OrderService;
+import com.safekab.market.service.order.OrderExportService;
+import com.safekab.market.test.MarketFixtures;
+import com.safekab.market.token.TokenBuilder;
+import com.safekab.market.token.TokenType;
+
+/**
+ * Exports complete on an async dispatch, which must not be refused for want of
+ * the authentication the token filter set on the original request. Rows are
+ * buffered, not flushed one by one.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderExportTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private TokenBuilder tokenBuilder;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderExportService orderExportService;
+    @Autowired
+    private MarketFixtures fixtures;
+
+    private User user;
+    private Product product;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        user = fixtures.user("export");
+        product = fixtures.product("Export", 10);
+        order = orderService.createOrder(user.getId(), orderOf(product, 2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.delete(user, product);
+    }
+
+    @Test
+    void csvExportStreamsAfterTheAsyncDispatch() throws Exception {
+        String body = export("csv", "text/csv");
+        assertTrue(body.startsWith("id,order_date,"), body);
+        assertTrue(body.contains("\n" + order.getId() + ","), body);
+    }
+
+    @Test
+    void ndjsonExportStreamsAfterTheAsyncDispatch() throws Exception {
+        String body = export("ndjson", "application/x-ndjson");
+        assertTrue(body.contains("{\"id\":" + order.getId() + ","), body);
+    }
+
+    @Test
+    void ndjsonRowsAreFlushedOnceAtTheEnd() throws Exception {
+        orderService.createOrder(user.getId(), orderOf(product, 1));
+        orderService.createOrder(user.getId(), orderOf(product, 1));
+        int[] flushes = new int[1];
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushes[0]++;
+            }
+        };
+
+        orderExportService.export(new AdminOrderFilter(null, null, null, null, user.getId(), null),
+                ExportFormat.NDJSON, out);
+
+        assertEquals(3, out.toString(StandardCharsets.UTF_8).lines().count());
+        assertEquals(1, flushes[0]);
+    }
+
+    private String export(String format, String contentType) throws Exception {
+        String token = tokenBuilder.createToken(user.getId().toString(), TokenType.ACCESS, List.of("ADMIN"))
+                .getToken();
+        MvcResult started = mockMvc.perform(get("/api/admin/orders/export")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .param("format", format).param("payment_status", "UNPAID"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(contentType))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,93 @@
+package com.safekab.market.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safekab.market.entity.Product;
+import com.safekab.market.repository.ProductRepository;
+import com.safekab.market.service.catalog.CatalogService;
+import com.safekab.market.test.MarketFixtures;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductListingTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MarketFixtures fixtures;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CatalogService catalogService;
+
+    // A currency of their own keeps other suites' products out of the listing
+    private String currency;
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        currency = "t" + UUID.randomUUID().toString().substring(0, 7);
+        products = List.of(product(1500L), product(500L), product(1000L));
+    }
+
+    @AfterEach
+    void tearDown() {
+        products.forEach(product -> {
+            productRepository.deleteById(product.getId());
+            catalogService.refreshProduct(product.getId());
+        });
+    }
+
+    @Test
+    void pagesFollowTheSortOrderAcrossCursors() throws Exception {
+        String body = mockMvc.perform(get("/api/products")
+                .param("limit", "2").param("sort", "PRICE_ASC").param("currency", currency))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(2))
+                .andExpect(jsonPath("$.products[0].id").value(products.get(1).getId()))
+                .andExpect(jsonPath("$.products[1].id").value(products.get(2).getId()))
+                .andReturn().getResponse().getContentAsString();
+        JsonNode firstPage = objectMapper.readTree(body);
+
+        mockMvc.perform(get("/api/products")
+                .param("limit", "2").param("sort", "PRICE_ASC").param("currency", currency)
+                .param("cursor", firstPage.get("next_cursor").asText()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(1))
+                .andExpect(jsonPath("$.products[0].id").value(products.get(0).getId()))
+                .andExpect(jsonPath("$.next_cursor").doesNotExist());
+    }
+
+    @Test
+    void unknownSortIsABadRequest() throws Exception {
+        mockMvc.perform(get("/api/products").param("limit", "2").param("sort", "bogus"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid value 'bogus' for parameter 'sort'"));
+    }
+
+    private Product product(long netPrice) {
+        Product product = fixtures.product("Listing", 10);
+        product.setNetPrice(netPrice);
+        product.setCurrency(currency);
+        product = productRepository.save(product);
+        catalogService.refreshProduct(product.getId());
+        return product;
+    }
+}
@@ -0,0 +1,113 @@
+package com.safekab.market.service.analytics;
+
+import static com.safekab.market.test.MarketFixtures.orderOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.safekab.market.dto.analytics.ProductSales;
+import com.safekab.market.dto.analytics.ProductSalesRanking;
+import com.safekab.market.dto.analytics.SalesPoint;
+import com.safekab.market.entity.Order;
+import com.safekab.market.entity.PaymentStatus;
+import com.safekab.market.entity.Product;
+import com.safekab.market.entity.TrackingStatus;
+import com.safekab.market.entity.User;
+import com.safekab.market.repository.OrderRepository;
+import com.safekab.market.service.OrderService;
+import com.safekab.market.test.MarketFixtures;
+
+@SpringBootTest
+class SalesRollupServiceTests {
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private MarketFixtures fixtures;
+
+    private User user;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        user = fixtures.user("rollup");
+        product = fixtures.product("Rollup", 10);
+        // Other suites delete their orders without touching the rollups
+        salesRollupService.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.delete(user, product);
+        salesRollupService.rebuild();
+    }
+
+    @Test
+    void ordersAreCountedWhenPlacedAndMovedWhenPaid() {
+        Order order = orderService.createOrder(user.getId(), orderOf(product, 3));
+        assertEquals(new ProductSales(product.getId(), null, 1, 3, 3600), productSales(PaymentStatus.UNPAID));
+
+        SalesPoint unpaidBefore = daily(PaymentStatus.UNPAID);
+        SalesPoint paidBefore = daily(PaymentStatus.PAID);
+        orderService.markPaid(order.getId());
+
+        assertEquals(new ProductSales(product.getId(), null, 1, 3, 3600), productSales(PaymentStatus.PAID));
+        assertEquals(unpaidBefore.orderCount() - 1, daily(PaymentStatus.UNPAID).orderCount());
+        assertEquals(paidBefore.revenue() + order.getTotalPrice(), daily(PaymentStatus.PAID).revenue());
+    }
+
+    @Test
+    void rebuildMatchesIncrementalRollups() {
+        orderService.createOrder(user.getId(), orderOf(product, 2));
+        orderService.createOrder(user.getId(), orderOf(product, 1));
+        List<SalesPoint> incremental = salesRollupService.daily(LocalDate.now(), LocalDate.now().plusDays(1), null);
+
+        salesRollupService.rebuild();
+        assertEquals(incremental, salesRollupService.daily(LocalDate.now(), LocalDate.now().plusDays(1), null));
+    }
+
+    @Test
+    void rebuildKeepsOrdersWithoutLines() {
+        SalesPoint before = daily(PaymentStatus.UNPAID);
+        Order order = new Order();
+        order.setUser(user);
+        order.setPaymentStatus(PaymentStatus.UNPAID);
+        order.setTrackingStatus(TrackingStatus.NOT_SHIPPED);
+        order.setOrderDate(LocalDateTime.now());
+        order.setShippingCost(500L);
+        orderRepository.save(order);
+
+        salesRollupService.rebuild();
+        SalesPoint after = daily(PaymentStatus.UNPAID);
+        assertEquals(before.orderCount() + 1, after.orderCount());
+        assertEquals(before.units(), after.units());
+        assertEquals(before.revenue() + 500, after.revenue());
+    }
+
+    private SalesPoint daily(PaymentStatus status) {
+        return salesRollupService.daily(LocalDate.now(), LocalDate.now().plusDays(1), status).stream()
+                .findFirst().orElse(new SalesPoint(LocalDate.now(), status, 0, 0, 0));
+    }
+
+    // Catalog names are not asserted: the fixture is not in the catalog snapshot
+    private ProductSales productSales(PaymentStatus status) {
+        return salesRollupService.topProducts(LocalDate.now(), LocalDate.now().plusDays(1), status,
+                ProductSalesRanking.REVENUE, 100).stream()
+                .filter(sales -> sales.productId() == product.getId())
+                .map(sales -> new ProductSales(sales.productId(), null, sales.orderCount(), sales.units(),
+                        sales.revenue()))
+                .findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,95 @@
+package com.safekab.market.service.cart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.safekab.market.dto.cart.CartOperation;
+import com.safekab.market.entity.Product;
+import com.safekab.market.entity.User;
+import com.safekab.market.repository.cart.CartRepository;
+import com.safekab.market.test.MarketFixtures;
+
+@SpringBootTest
+class CartServiceTests {
+
+    @Autowired
+    private CartService cartService;
+    @Autowired
+    private CartRepository cartRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MarketFixtures fixtures;
+
+    private User user;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        user = fixtures.user("cart");
+        product = fixtures.product("Cart", 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cartRepository.findByUser(user).ifPresent(cartRepository::delete);
+        fixtures.delete(user, product);
+    }
+
+    @Test
+    void racingDecrementsNeverLeaveAnEmptyLine() throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            for (int round = 0; round < 20; round++) {
+                cartService.deltaProductQuantity(user.getId(), product.getId(), 2);
+                Callable<Void> decrement = () -> {
+                    cartService.deltaProductQuantity(user.getId(), product.getId(), -1);
+                    return null;
+                };
+                for (Future<Void> result : executor.invokeAll(List.of(decrement, decrement))) {
+                    result.get();
+                }
+                assertEquals(List.of(), quantities(), "round " + round);
+            }
+        }
+    }
+
+    @Test
+    void concurrentFirstBatchesShareOneNewCart() throws Exception {
+        CartOperation add = new CartOperation();
+        add.setProductId(product.getId());
+        add.setDelta(1);
+        List<Callable<Void>> batches = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            batches.add(() -> {
+                cartService.applyOperations(user.getId(), List.of(add));
+                return null;
+            });
+        }
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (Future<Void> result : executor.invokeAll(batches)) {
+                result.get();
+            }
+        }
+        assertEquals(List.of(8), quantities());
+    }
+
+    private List<Integer> quantities() {
+        return jdbcTemplate.queryForList("""
+                SELECT cp.quantity FROM cart_products cp JOIN carts c ON c.id = cp.cart_id
+                WHERE c.user_id = ? AND cp.product_id = ?
+                """, Integer.class, user.getId(), product.getId());
+    }
+}
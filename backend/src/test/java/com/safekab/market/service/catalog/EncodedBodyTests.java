@@ -0,0 +1,32 @@
+package com.safekab.market.service.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+class EncodedBodyTests {
+
+    private final EncodedBody body = new EncodedBody(new byte[] { 1 }, new byte[] { 2 }, "\"v1\"", Instant.EPOCH);
+
+    @Test
+    void gzipIsSentWhenAcceptedByNameOrWildcard() {
+        assertTrue(body.useGzip("gzip, deflate, br"));
+        assertTrue(body.useGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(body.useGzip("*"));
+        assertFalse(body.useGzip("br, deflate"));
+        assertFalse(body.useGzip(null));
+        assertFalse(new EncodedBody(new byte[] { 1 }, null, "\"v1\"", Instant.EPOCH).useGzip("gzip"));
+    }
+
+    @Test
+    void explicitGzipEntryWinsOverWildcardInAnyOrder() {
+        assertTrue(body.useGzip("*;q=0, gzip"));
+        assertTrue(body.useGzip("gzip, *;q=0"));
+        assertFalse(body.useGzip("gzip;q=0, *"));
+        assertFalse(body.useGzip("*, gzip;q=0"));
+        assertFalse(body.useGzip("*;q=0"));
+    }
+}
@@ -0,0 +1,74 @@
+package com.safekab.market.service.catalog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.safekab.market.dto.product.ProductResponseItem;
+
+class ProductSearchIndexTests {
+
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    @Test
+    void nameMatchesOutrankDescriptionMatchesAndEveryTermMustMatch() {
+        index.rebuild(List.of(
+                item(1L, "Blue hat", "Goes well with a red scarf"),
+                item(2L, "Red wool scarf", "Warm"),
+                item(3L, "Green gloves", null)));
+
+        assertEquals(List.of(2L, 1L), index.search("red ", 10));
+        assertEquals(List.of(1L), index.search("red hat", 10));
+        assertEquals(List.of(2L), index.search("red", 1));
+        assertEquals(List.of(), index.search("red gloves", 10));
+    }
+
+    @Test
+    void lastTermMatchesAsPrefixUnlessFollowedBySpace() {
+        index.rebuild(List.of(
+                item(1L, "Scarf", null),
+                item(2L, "Scarves set", null),
+                item(3L, "Café crème", null)));
+
+        assertEquals(List.of(1L, 2L), index.search("sca", 10));
+        assertEquals(List.of(), index.search("sca ", 10));
+        assertEquals(List.of(2L), index.search("set sca", 10));
+        assertEquals(List.of(3L), index.search("CAFE cre", 10));
+    }
+
+    @Test
+    void prefixExpandsToAtMost64Terms() {
+        List<ProductResponseItem> items = new ArrayList<>();
+        for (long id = 0; id < 70; id++) {
+            items.add(item(id, "Item zz%02d".formatted(id), null));
+        }
+        index.rebuild(items);
+
+        // Terms expand in sorted order, so zz64 to zz69 fall past the cap
+        assertEquals(LongStream.range(0, 64).boxed().toList(), index.search("zz", 100));
+        assertEquals(List.of(69L), index.search("zz69", 100));
+    }
+
+    @Test
+    void updatedOrRemovedProductsStopMatchingTheirOldTerms() {
+        index.rebuild(List.of(item(1L, "Leather boots", "Brown"), item(2L, "Leather belt", null)));
+
+        index.index(item(1L, "Suede boots", "Tan"));
+        assertEquals(List.of(2L), index.search("leather ", 10));
+        assertEquals(List.of(), index.search("brown", 10));
+        assertEquals(List.of(1L), index.search("suede", 10));
+
+        index.remove(2L);
+        assertEquals(List.of(), index.search("leather", 10));
+        assertEquals(List.of(), index.search("belt", 10));
+        assertEquals(List.of(1L), index.search("boots", 10));
+    }
+
+    private static ProductResponseItem item(Long id, String name, String description) {
+        return new ProductResponseItem(id, name, description, 1000L, 20, 5, null, List.of());
+    }
+}
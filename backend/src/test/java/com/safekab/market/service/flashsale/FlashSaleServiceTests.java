@@ -0,0 +1,94 @@
+package com.safekab.market.service.flashsale;
+
+import static com.safekab.market.test.MarketFixtures.orderOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+
+import com.safekab.market.dto.flashsale.FlashSaleStatusResponse.State;
+import com.safekab.market.dto.product.UpdateProductRequest;
+import com.safekab.market.entity.Product;
+import com.safekab.market.entity.User;
+import com.safekab.market.exception.ApiException;
+import com.safekab.market.repository.ProductRepository;
+import com.safekab.market.service.OrderService;
+import com.safekab.market.service.ProductService;
+import com.safekab.market.service.catalog.CatalogService;
+import com.safekab.market.test.MarketFixtures;
+
+@SpringBootTest
+class FlashSaleServiceTests {
+
+    @Autowired
+    private FlashSaleService flashSaleService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private ProductService productService;
+    @Autowired
+    private CatalogService catalogService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private MarketFixtures fixtures;
+
+    private User buyer;
+    private User other;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        buyer = fixtures.user("flash");
+        other = fixtures.user("flash");
+        product = fixtures.product("Flash", 1);
+        product.setFlashSaleRate(10);
+        product = productRepository.save(product);
+        catalogService.refreshProduct(product.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.delete(other);
+        fixtures.delete(buyer, product);
+        catalogService.refreshProduct(product.getId());
+    }
+
+    @Test
+    void failedOrderKeepsTheAdmissionAndTheLastUnitSellsOut() {
+        flashSaleService.join(buyer.getId(), product.getId());
+        flashSaleService.join(other.getId(), product.getId());
+        flashSaleService.admit();
+
+        ApiException shortage = assertThrows(ApiException.class,
+                () -> orderService.createOrder(buyer.getId(), orderOf(product, 2)));
+        assertEquals(HttpStatus.CONFLICT, shortage.getStatus());
+        assertEquals(State.ADMITTED, flashSaleService.status(buyer.getId(), product.getId()).getState());
+
+        orderService.createOrder(buyer.getId(), orderOf(product, 1));
+        // Known sold out without anyone failing a reservation first
+        assertEquals(State.SOLD_OUT, flashSaleService.status(other.getId(), product.getId()).getState());
+    }
+
+    @Test
+    void adminRestockResumesAdmissions() {
+        flashSaleService.join(buyer.getId(), product.getId());
+        flashSaleService.join(other.getId(), product.getId());
+        flashSaleService.admit();
+        orderService.createOrder(buyer.getId(), orderOf(product, 1));
+        assertEquals(State.SOLD_OUT, flashSaleService.status(other.getId(), product.getId()).getState());
+
+        UpdateProductRequest restock = new UpdateProductRequest();
+        restock.setId(product.getId());
+        restock.setStock(5);
+        productService.updateProduct(restock);
+        flashSaleService.admit();
+
+        assertEquals(State.ADMITTED, flashSaleService.status(other.getId(), product.getId()).getState());
+    }
+}
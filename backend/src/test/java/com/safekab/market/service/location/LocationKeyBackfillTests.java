@@ -0,0 +1,122 @@
+package com.safekab.market.service.location;
+
+import static com.safekab.market.test.MarketFixtures.orderOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.safekab.market.entity.Location;
+import com.safekab.market.entity.Order;
+import com.safekab.market.entity.Product;
+import com.safekab.market.entity.User;
+import com.safekab.market.repository.location.LocationAddressRepository;
+import com.safekab.market.service.OrderService;
+import com.safekab.market.test.MarketFixtures;
+
+@SpringBootTest
+class LocationKeyBackfillTests {
+
+    @Autowired
+    private LocationAddressRepository locationAddressRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private MarketFixtures fixtures;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        user = fixtures.user("location");
+        product = fixtures.product("Location", 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.deleteOrders(user);
+        jdbcTemplate.update("DELETE FROM locations WHERE user_id = ?", user.getId());
+        fixtures.delete(user, product);
+    }
+
+    @Test
+    void addressKeyIgnoresCaseWhitespaceAndMissingFields() {
+        assertEquals(Location.addressKey("1 High  Street", null, "London", "SW1A 1AA", "GB"),
+                Location.addressKey(" 1 high street", "", "LONDON", "sw1a1aa", "gb "));
+        assertNotEquals(Location.addressKey("1 High Street", null, "London", "SW1A 1AA", "GB"),
+                Location.addressKey("2 High Street", null, "London", "SW1A 1AA", "GB"));
+    }
+
+    @Test
+    void sameAddressIsStoredOnce() {
+        Long first = locationAddressRepository.findOrInsert(user.getId(), address("1 High Street", null));
+        Long second = locationAddressRepository.findOrInsert(user.getId(), address("1 HIGH STREET ", ""));
+        assertEquals(first, second);
+        assertEquals(1, count());
+    }
+
+    @Test
+    void backfillKeysLegacyLocationsAndMergesDuplicates() {
+        Long kept = legacy("1 High Street");
+        Long duplicate = legacy("1 high street");
+        Long other = legacy("2 High Street");
+        Long alreadyKeyed = locationAddressRepository.findOrInsert(user.getId(), address("3 High Street", null));
+        Long legacyOfKeyed = legacy("3 High Street");
+        Order shipped = orderService.createOrder(user.getId(), orderOf(product, 1));
+        jdbcTemplate.update("UPDATE orders SET shipment_location_id = ? WHERE id = ?", duplicate, shipped.getId());
+        Order shippedToKeyed = orderService.createOrder(user.getId(), orderOf(product, 1));
+        jdbcTemplate.update("UPDATE orders SET shipment_location_id = ? WHERE id = ?", legacyOfKeyed,
+                shippedToKeyed.getId());
+
+        // A batch of two makes duplicates span batches
+        new LocationKeyBackfill(locationAddressRepository, transactionManager, 2).backfill();
+
+        assertEquals(List.of(kept, other, alreadyKeyed), jdbcTemplate.queryForList(
+                "SELECT id FROM locations WHERE user_id = ? AND address_key IS NOT NULL ORDER BY id",
+                Long.class, user.getId()));
+        assertEquals(3, count());
+        assertEquals(kept, shipmentLocation(shipped));
+        assertEquals(alreadyKeyed, shipmentLocation(shippedToKeyed));
+        assertEquals(other, locationAddressRepository.findOrInsert(user.getId(), address("2 high street", null)));
+    }
+
+    private Long legacy(String line1) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO locations (user_id, line1, line2, city, postal_code, country)
+                VALUES (?, ?, NULL, 'London', 'SW1A 1AA', 'GB') RETURNING id
+                """, Long.class, user.getId(), line1);
+    }
+
+    private Location address(String line1, String line2) {
+        Location location = new Location();
+        location.setLine1(line1);
+        location.setLine2(line2);
+        location.setCity("London");
+        location.setPostalCode("SW1A 1AA");
+        location.setCountry("GB");
+        return location;
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM locations WHERE user_id = ?", Integer.class,
+                user.getId());
+    }
+
+    private Long shipmentLocation(Order order) {
+        return jdbcTemplate.queryForObject("SELECT shipment_location_id FROM orders WHERE id = ?", Long.class,
+                order.getId());
+    }
+}
@@ -0,0 +1,121 @@
+package com.safekab.market.service.payment;
+
+import static com.safekab.market.test.MarketFixtures.orderOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import com.safekab.market.entity.Order;
+import com.safekab.market.entity.Product;
+import com.safekab.market.entity.User;
+import com.safekab.market.service.OrderService;
+import com.safekab.market.test.MarketFixtures;
+
+@SpringBootTest
+class PaymentServiceTests {
+
+    @MockitoBean
+    private PaymentProvider paymentProvider;
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private CheckoutSessionCache checkoutSessionCache;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private MarketFixtures fixtures;
+
+    private final AtomicInteger sessions = new AtomicInteger();
+    private User user;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        user = fixtures.user("checkout");
+        product = fixtures.product("Checkout", 10);
+
+        when(paymentProvider.createPayment(any())).thenAnswer(invocation -> {
+            Thread.sleep(100);
+            int n = sessions.incrementAndGet();
+            return new CheckoutSession("cs_" + n, "https://checkout.test/" + n, LocalDateTime.now().plusHours(1));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.delete(user, product);
+    }
+
+    @Test
+    void unexpiredSessionIsReusedFromMemoryAndFromTheOrder() {
+        Order order = orderService.createOrder(user.getId(), orderOf(product, 1));
+        String url = paymentService.createPayment(order.getId());
+        assertEquals(url, paymentService.createPayment(order.getId()));
+
+        // As on another node: only the stored session is available
+        checkoutSessionCache.evict(order.getId());
+        assertEquals(url, paymentService.createPayment(order.getId()));
+        verify(paymentProvider, times(1)).createPayment(any());
+    }
+
+    @Test
+    void concurrentClicksStartOneSession() throws Exception {
+        Order order = orderService.createOrder(user.getId(), orderOf(product, 2));
+        List<Callable<String>> clicks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            clicks.add(() -> paymentService.createPayment(order.getId()));
+        }
+        Set<String> urls = new HashSet<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (Future<String> url : executor.invokeAll(clicks)) {
+                urls.add(url.get());
+            }
+        }
+        assertEquals(1, urls.size());
+        verify(paymentProvider, times(1)).createPayment(any());
+    }
+
+    @Test
+    void paidOrderDoesNotReuseItsSession() {
+        Order order = orderService.createOrder(user.getId(), orderOf(product, 1));
+        String url = paymentService.createPayment(order.getId());
+        orderService.markPaid(order.getId());
+
+        assertNotEquals(url, paymentService.createPayment(order.getId()));
+        verify(paymentProvider, times(2)).createPayment(any());
+    }
+
+    @Test
+    void sessionCachedOnAnotherNodeIsNotReusedOncePaid() {
+        Order order = orderService.createOrder(user.getId(), orderOf(product, 1));
+        String url = paymentService.createPayment(order.getId());
+        CheckoutSession session = checkoutSessionCache.get(order.getId());
+        orderService.markPaid(order.getId());
+        // The node that applied the payment evicted its entry; this one still holds it
+        checkoutSessionCache.put(order.getId(), session);
+
+        assertNotEquals(url, paymentService.createPayment(order.getId()));
+        verify(paymentProvider, times(2)).createPayment(any());
+    }
+}
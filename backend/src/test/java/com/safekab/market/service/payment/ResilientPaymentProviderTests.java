@@ -0,0 +1,136 @@
+package com.safekab.market.service.payment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import com.safekab.market.entity.Order;
+import com.safekab.market.exception.ApiException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ResilientPaymentProviderTests {
+
+    private static final Duration OPEN = Duration.ofMillis(200);
+
+    // Confirms by running the given behaviour; counts calls that reached it
+    private static final class FakeProvider implements PaymentProvider {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile Runnable behaviour = () -> {
+        };
+
+        @Override
+        public CheckoutSession createPayment(Order order) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean confirmPayment(String paymentIntentId) {
+            calls.incrementAndGet();
+            behaviour.run();
+            return true;
+        }
+
+        @Override
+        public WebhookEvent verifyWebhook(String payload, Map<String, String> headers) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void processWebhook(WebhookEvent event) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private final FakeProvider fake = new FakeProvider();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ResilientPaymentProvider provider = ResilientPaymentProvider.create(fake,
+            new ResilientPaymentProvider.Limits(Duration.ofMillis(100), 2, Duration.ofMillis(20), 3, OPEN),
+            registry);
+
+    @Test
+    void slowCallsTimeOutAtTheDeadline() {
+        fake.behaviour = () -> sleep(2000);
+        long start = System.nanoTime();
+        ApiException timeout = assertThrows(ApiException.class, () -> provider.confirmPayment("pi"));
+        assertEquals(HttpStatus.GATEWAY_TIMEOUT, timeout.getStatus());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1000);
+    }
+
+    @Test
+    void bulkheadRefusesCallsBeyondTheLimit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        fake.behaviour = () -> await(release);
+        try (ExecutorService callers = Executors.newFixedThreadPool(2)) {
+            Future<?> first = callers.submit(() -> provider.confirmPayment("pi"));
+            Future<?> second = callers.submit(() -> provider.confirmPayment("pi"));
+            while (fake.calls.get() < 2) {
+                Thread.sleep(5);
+            }
+            ApiException busy = assertThrows(ApiException.class, () -> provider.confirmPayment("pi"));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, busy.getStatus());
+            release.countDown();
+            first.get();
+            second.get();
+        }
+        assertEquals(1.0, registry.get("payment.provider.rejected").tag("reason", "bulkhead_full").counter().count());
+    }
+
+    @Test
+    void circuitOpensAfterFailuresAndClosesAfterASuccessfulTrial() throws Exception {
+        fake.behaviour = () -> {
+            throw new RuntimeException("provider down");
+        };
+        for (int i = 0; i < 3; i++) {
+            assertThrows(RuntimeException.class, () -> provider.confirmPayment("pi"));
+        }
+        ApiException open = assertThrows(ApiException.class, () -> provider.confirmPayment("pi"));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, open.getStatus());
+        assertEquals(3, fake.calls.get());
+
+        Thread.sleep(OPEN.toMillis() + 50);
+        fake.behaviour = () -> {
+        };
+        assertTrue(provider.confirmPayment("pi"));
+        assertTrue(provider.confirmPayment("pi"));
+        assertEquals(5, fake.calls.get());
+    }
+
+    @Test
+    void refusedRequestsDoNotCountAsProviderFailures() {
+        fake.behaviour = () -> {
+            throw new IllegalArgumentException("Order is already paid");
+        };
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IllegalArgumentException.class, () -> provider.confirmPayment("pi"));
+        }
+        assertEquals(5, fake.calls.get());
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.safekab.market.service.payment;
+
+import static com.safekab.market.test.MarketFixtures.orderOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.safekab.market.entity.Order;
+import com.safekab.market.entity.PaymentStatus;
+import com.safekab.market.entity.Product;
+import com.safekab.market.entity.ReservationStatus;
+import com.safekab.market.entity.User;
+import com.safekab.market.exception.ApiException;
+import com.safekab.market.repository.OrderRepository;
+import com.safekab.market.service.OrderService;
+import com.safekab.market.test.MarketFixtures;
+import com.stripe.Stripe;
+
+@SpringBootTest
+class WebhookInboxTests {
+
+    @Autowired
+    private PaymentService paymentService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private MarketFixtures fixtures;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Value("${app.payment.webhook.secret}")
+    private String secret;
+
+    private User user;
+    private Product product;
+    private String eventId;
+    private String sessionId;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        eventId = "evt_test_" + suffix;
+        sessionId = "cs_test_" + suffix;
+        user = fixtures.user("webhook");
+        product = fixtures.product("Webhook", 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM webhook_inbox WHERE event_id = ? OR object_id = ?", eventId, sessionId);
+        fixtures.delete(user, product);
+    }
+
+    @Test
+    void redeliveredEventIsStoredOnceAndAppliedAsynchronously() throws Exception {
+        Order order = orderService.createOrder(user.getId(), orderOf(product, 2));
+        String payload = completedSession(eventId, order.getId());
+        Map<String, String> headers = Map.of("stripe-signature", sign(payload));
+        String resent = completedSession(eventId + "_resent", order.getId());
+
+        paymentService.handleWebhook(payload, headers);
+        paymentService.handleWebhook(payload, headers);
+        paymentService.handleWebhook(resent, Map.of("stripe-signature", sign(resent)));
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM webhook_inbox WHERE object_id = ?", Integer.class, sessionId));
+        String status = awaitStatus();
+        assertEquals("DONE", status);
+        Order paid = orderRepository.findById(order.getId()).orElseThrow();
+        assertEquals(PaymentStatus.PAID, paid.getPaymentStatus());
+        assertEquals(ReservationStatus.COMMITTED, orderRepository.findReservationStatusById(order.getId()).orElseThrow());
+        // Paying again is a no-op
+        assertTrue(orderService.markPaid(order.getId()).isEmpty());
+    }
+
+    @Test
+    void forgedWebhookIsRejectedAndNotStored() {
+        String payload = completedSession(eventId, 1L);
+        ApiException refusal = assertThrows(ApiException.class,
+                () -> paymentService.handleWebhook(payload, Map.of("stripe-signature", "t=1,v1=forged")));
+        assertEquals(HttpStatus.BAD_REQUEST, refusal.getStatus());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM webhook_inbox WHERE event_id = ?", Integer.class, eventId));
+    }
+
+    private String awaitStatus() throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            List<String> status = jdbcTemplate.queryForList(
+                    "SELECT status FROM webhook_inbox WHERE event_id = ?", String.class, eventId);
+            if (status.equals(List.of("DONE")) || status.equals(List.of("DEAD"))) {
+                return status.getFirst();
+            }
+            Thread.sleep(100);
+        }
+        return "TIMED_OUT";
+    }
+
+    private String completedSession(String id, Long orderId) {
+        return """
+                {"id": "%s", "object": "event", "api_version": "%s", "type": "checkout.session.completed",
+                 "data": {"object": {"id": "%s", "object": "checkout.session",
+                                     "metadata": {"order_id": "%d"}}}}
+                """.formatted(id, Stripe.API_VERSION, sessionId, orderId);
+    }
+
+    private String sign(String payload) throws Exception {
+        long timestamp = System.currentTimeMillis() / 1000;
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] signature = mac.doFinal((timestamp + "." + payload).getBytes(StandardCharsets.UTF_8));
+        return "t=" + timestamp + ",v1=" + HexFormat.of().formatHex(signature);
+    }
+}
@@ -0,0 +1,158 @@
+package com.safekab.market.service.stock;
+
+import static com.safekab.market.test.MarketFixtures.orderOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+
+import com.safekab.market.entity.Order;
+import com.safekab.market.entity.Product;
+import com.safekab.market.entity.ReservationStatus;
+import com.safekab.market.entity.User;
+import com.safekab.market.exception.ApiException;
+import com.safekab.market.repository.OrderRepository;
+import com.safekab.market.repository.ProductRepository;
+import com.safekab.market.service.OrderService;
+import com.safekab.market.test.MarketFixtures;
+
+@SpringBootTest
+class StockReservationServiceTests {
+
+    private static final int STOCK = 10;
+    private static final int BUYERS = 60;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private StockReservationService stockReservationService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private MarketFixtures fixtures;
+
+    private User user;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        user = fixtures.user("stock");
+        product = fixtures.product("Stock", STOCK);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixtures.delete(user, product);
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        List<Callable<Order>> checkouts = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            checkouts.add(() -> orderService.createOrder(user.getId(), orderOf(product, 1)));
+        }
+        int placed = 0;
+        int refused = 0;
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (Future<Order> result : executor.invokeAll(checkouts)) {
+                try {
+                    result.get();
+                    placed++;
+                } catch (ExecutionException e) {
+                    ApiException refusal = (ApiException) e.getCause();
+                    assertEquals(HttpStatus.CONFLICT, refusal.getStatus());
+                    refused++;
+                }
+            }
+        }
+        assertEquals(STOCK, placed);
+        assertEquals(BUYERS - STOCK, refused);
+        assertEquals(0, productRepository.findById(product.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    void expiredReservationReturnsStockAndLatePaymentTakesItBack() {
+        Order order = orderService.createOrder(user.getId(), orderOf(product, 4));
+        assertEquals(STOCK - 4, stockOf(product));
+
+        stockReservationService.release(order.getId(), LocalDateTime.now().plusYears(1));
+        assertEquals(STOCK, stockOf(product));
+        assertEquals(ReservationStatus.RELEASED, reservationOf(order));
+
+        stockReservationService.commit(order.getId());
+        assertEquals(STOCK - 4, stockOf(product));
+        assertEquals(ReservationStatus.COMMITTED, reservationOf(order));
+
+        // Committed stock is never handed back
+        stockReservationService.release(order.getId(), LocalDateTime.now().plusYears(1));
+        assertEquals(STOCK - 4, stockOf(product));
+    }
+
+    @Test
+    void renewedReservationIsNotReleasedByAnOlderDeadline() {
+        Order order = orderService.createOrder(user.getId(), orderOf(product, 2));
+        LocalDateTime renewedUntil = stockReservationService.renew(order.getId());
+
+        stockReservationService.release(order.getId(), renewedUntil.minusMinutes(1));
+        assertEquals(ReservationStatus.RESERVED, reservationOf(order));
+        assertEquals(STOCK - 2, stockOf(product));
+    }
+
+    @Test
+    void concurrentRenewalsOfALapsedReservationTakeItsStockOnce() throws Exception {
+        Order order = orderService.createOrder(user.getId(), orderOf(product, 3));
+        stockReservationService.release(order.getId(), LocalDateTime.now().plusYears(1));
+        assertEquals(STOCK, stockOf(product));
+
+        List<Callable<LocalDateTime>> renewals = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            renewals.add(() -> stockReservationService.renew(order.getId()));
+        }
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (Future<LocalDateTime> renewal : executor.invokeAll(renewals)) {
+                renewal.get();
+            }
+        }
+        assertEquals(ReservationStatus.RESERVED, reservationOf(order));
+        assertEquals(STOCK - 3, stockOf(product));
+    }
+
+    @Test
+    void renewalRacingAReleaseNeverHoldsAnOrderWithoutStock() throws Exception {
+        Order order = orderService.createOrder(user.getId(), orderOf(product, 2));
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            for (int round = 0; round < 20; round++) {
+                Future<?> release = executor.submit(
+                        () -> stockReservationService.release(order.getId(), LocalDateTime.now().plusYears(1)));
+                Future<?> renewal = executor.submit(() -> stockReservationService.renew(order.getId()));
+                release.get();
+                renewal.get();
+                int held = reservationOf(order) == ReservationStatus.RESERVED ? 2 : 0;
+                assertEquals(STOCK - held, stockOf(product), "round " + round);
+            }
+        }
+    }
+
+    private int stockOf(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getStock();
+    }
+
+    private ReservationStatus reservationOf(Order order) {
+        return orderRepository.findReservationStatusById(order.getId()).orElseThrow();
+    }
+}
@@ -0,0 +1,81 @@
+package com.safekab.market.test;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import com.safekab.market.dto.order.CreateOrderItem;
+import com.safekab.market.dto.order.CreateOrderRequest;
+import com.safekab.market.entity.Product;
+import com.safekab.market.entity.User;
+import com.safekab.market.repository.OrderRepository;
+import com.safekab.market.repository.ProductRepository;
+import com.safekab.market.repository.UserRepository;
+
+/**
+ * Throwaway users and products for tests that run against the shared local
+ * database. Names carry a random suffix so concurrent and leftover rows never
+ * collide; {@link #delete} removes a user with their orders.
+ */
+@Component
+public class MarketFixtures {
+
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+
+    public MarketFixtures(UserRepository userRepository, ProductRepository productRepository,
+            OrderRepository orderRepository) {
+        this.userRepository = userRepository;
+        this.productRepository = productRepository;
+        this.orderRepository = orderRepository;
+    }
+
+    public User user(String prefix) {
+        String name = prefix + "-" + suffix();
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@example.com");
+        user.setPassword("unused");
+        return userRepository.save(user);
+    }
+
+    /** A 10.00 GBP net, 20% VAT product. */
+    public Product product(String prefix, int stock) {
+        Product product = new Product();
+        product.setName(prefix + " fixture " + suffix());
+        product.setNetPrice(1000L);
+        product.setVatRate(20);
+        product.setCurrency("gbp");
+        product.setStock(stock);
+        return productRepository.save(product);
+    }
+
+    public static CreateOrderRequest orderOf(Product product, int quantity) {
+        CreateOrderItem item = new CreateOrderItem();
+        item.setProductId(product.getId());
+        item.setQuantity(quantity);
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setItems(List.of(item));
+        return request;
+    }
+
+    public void deleteOrders(User user) {
+        orderRepository.deleteAllById(orderRepository.findIdsByUserId(user.getId(), Pageable.unpaged()));
+    }
+
+    /** Delete the user's orders, the products, then the user. */
+    public void delete(User user, Product... products) {
+        deleteOrders(user);
+        for (Product product : products) {
+            productRepository.deleteById(product.getId());
+        }
+        userRepository.deleteById(user.getId());
+    }
+
+    private static String suffix() {
+        return UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,30 @@
+package com.safekab.market.test;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import com.safekab.market.middleware.QueryStatsFilter;
+
+/**
+ * MockMvc matchers asserting how many SQL statements a request may issue.
+ * Requires {@code app.query-stats.headers=true} so the counts are exposed
+ * as response headers.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static ResultMatcher statementsAtMost(int max) {
+        return result -> {
+            String header = result.getResponse().getHeader(QueryStatsFilter.STATEMENTS_HEADER);
+            assertNotNull(header, "No " + QueryStatsFilter.STATEMENTS_HEADER
+                    + " header; is app.query-stats.headers enabled?");
+            int statements = Integer.parseInt(header);
+            assertTrue(statements <= max, () -> "%s %s issued %d statements, budget is %d".formatted(
+                    result.getRequest().getMethod(), result.getRequest().getRequestURI(), statements, max));
+        };
+    }
+}
@@ -20,7 +20,7 @@ import {
   type AdminOrderResponse,
 } from "@/services/api";
 import { formatPriceUk } from "@/lib/utils";
-import { getGrossPrice } from "@/models/Product";
+import { nextTrackingStatus } from "./types";
 
 interface OrderCardProps {
   order: AdminOrderResponse;
@@ -84,21 +84,6 @@ export const OrderCard: React.FC<OrderCardProps> = ({
     });
   };
 
-  const getNextStatus = (
-    currentStatus: TrackingStatus
-  ): TrackingStatus | null => {
-    switch (currentStatus) {
-      case TrackingStatus.NOT_SHIPPED:
-        return TrackingStatus.SHIPPED;
-      case TrackingStatus.SHIPPED:
-        return TrackingStatus.IN_TRANSIT;
-      case TrackingStatus.IN_TRANSIT:
-        return TrackingStatus.DELIVERED;
-      default:
-        return null;
-    }
-  };
-
   return (
     <Card className="hover:shadow-md transition-shadow">
       <CardContent className="p-6">
@@ -177,7 +162,7 @@ export const OrderCard: React.FC<OrderCardProps> = ({
                       {item.product.name} × {item.quantity}
                     </span>
                     <span className="font-medium">
-                      {formatPriceUk(getGrossPrice(item.product) * item.quantity)}
+                      {formatPriceUk(item.line_total)}
                     </span>
                   </div>
                 ))}
@@ -204,7 +189,7 @@ export const OrderCard: React.FC<OrderCardProps> = ({
               order.tracking_status !== TrackingStatus.RETURNED && (
                 <Button
                   onClick={() => {
-                    const nextStatus = getNextStatus(order.tracking_status);
+                    const nextStatus = nextTrackingStatus(order.tracking_status);
                     if (nextStatus) {
                       onStatusUpdate(order.id, nextStatus);
                     }
@@ -220,13 +205,13 @@ export const OrderCard: React.FC<OrderCardProps> = ({
                     />
                   ) : (
                     getStatusIcon(
-                      getNextStatus(order.tracking_status) ||
+                      nextTrackingStatus(order.tracking_status) ||
                         order.tracking_status
                     )
                   )}
                   <span className="ml-2">
                     Mark as{" "}
-                    {getNextStatus(order.tracking_status)?.replace("_", " ")}
+                    {nextTrackingStatus(order.tracking_status)?.replace("_", " ")}
                   </span>
                 </Button>
               )}
@@ -42,7 +42,7 @@ export const OrderFilters: React.FC<OrderFiltersProps> = ({
                 );
               }}
             >
-              {/* <option value="">All Payment Status</option> */}
+              <option value="">All Payment Status</option>
               <option value={PaymentStatus.PAID}>Paid</option>
               <option value={PaymentStatus.UNPAID}>Unpaid</option>
               <option value={PaymentStatus.REFUNDED}>Refunded</option>
@@ -63,7 +63,7 @@ export const OrderFilters: React.FC<OrderFiltersProps> = ({
                 );
               }}
             >
-              {/* <option value="">All Tracking Status</option> */}
+              <option value="">All Tracking Status</option>
               <option value={TrackingStatus.NOT_SHIPPED}>Not Shipped</option>
               <option value={TrackingStatus.SHIPPED}>Shipped</option>
               <option value={TrackingStatus.IN_TRANSIT}>In Transit</option>
@@ -1,43 +1,53 @@
 import React from "react";
+import { Truck } from "lucide-react";
 import { Button } from "@/components/ui/button";
 import { Spinner } from "@/components/ui/spinner";
-import { ChevronLeft, ChevronRight } from "lucide-react";
 import {
   PaymentStatus,
   TrackingStatus,
   type AdminOrderResponse,
-  type Page,
 } from "@/services/api";
 import { OrderFilters } from "./OrderFilters";
 import { OrderCard } from "./OrderCard";
+import { nextTrackingStatus } from "./types";
 
 interface OrdersTabProps {
-  orders: Page<AdminOrderResponse> | null;
+  orders: AdminOrderResponse[] | null;
+  hasMore: boolean;
   loading: boolean;
   updating: number | null;
+  bulkUpdating: boolean;
   paymentFilter: PaymentStatus | undefined;
   setPaymentFilter: (filter: PaymentStatus | undefined) => void;
   trackingFilter: TrackingStatus | undefined;
   setTrackingFilter: (filter: TrackingStatus | undefined) => void;
-  currentPage: number;
-  setCurrentPage: (page: number) => void;
+  onLoadMore: () => void;
   onResetFilters: () => void;
   onStatusUpdate: (orderId: number, status: TrackingStatus) => void;
+  onBulkStatusUpdate: (orderIds: number[], status: TrackingStatus) => void;
 }
 
 export const OrdersTab: React.FC<OrdersTabProps> = ({
   orders,
+  hasMore,
   loading,
   updating,
+  bulkUpdating,
   paymentFilter,
   setPaymentFilter,
   trackingFilter,
   setTrackingFilter,
-  currentPage,
-  setCurrentPage,
+  onLoadMore,
   onResetFilters,
   onStatusUpdate,
+  onBulkStatusUpdate,
 }) => {
+  // Paid orders filtered to one tracking status can all be advanced in one request
+  const bulkStatus =
+    paymentFilter === PaymentStatus.PAID && trackingFilter
+      ? nextTrackingStatus(trackingFilter)
+      : null;
+
   return (
     <div className="space-y-6 m-10">
       <div className="flex flex-col sm:flex-row justify-between items-start sm:items-center gap-4">
@@ -47,9 +57,29 @@ export const OrdersTab: React.FC<OrdersTabProps> = ({
         </div>
 
         {orders && (
-          <div className="text-sm text-gray-600">
-            Showing {orders.content.length} of {orders.page.totalElements}{" "}
-            orders
+          <div className="flex items-center gap-4">
+            <div className="text-sm text-gray-600">
+              Showing {orders.length}
+              {hasMore ? "+" : ""} orders
+            </div>
+            {bulkStatus && orders.length > 0 && (
+              <Button
+                disabled={bulkUpdating}
+                onClick={() =>
+                  onBulkStatusUpdate(
+                    orders.map((order) => order.id),
+                    bulkStatus
+                  )
+                }
+              >
+                {bulkUpdating ? (
+                  <Spinner variant="circle-filled" size={16} className="mr-2" />
+                ) : (
+                  <Truck className="h-4 w-4 mr-2" />
+                )}
+                Mark {orders.length} shown as {bulkStatus.replace("_", " ")}
+              </Button>
+            )}
           </div>
         )}
       </div>
@@ -65,14 +95,14 @@ export const OrdersTab: React.FC<OrdersTabProps> = ({
 
       {/* Orders List */}
       <div className="space-y-4">
-        {loading ? (
+        {loading && !orders ? (
           <div className="flex justify-center items-center py-8">
             <Spinner variant="circle-filled" size={32} />
             <span className="ml-2">Loading...</span>
           </div>
-        ) : orders && orders.content.length > 0 ? (
+        ) : orders && orders.length > 0 ? (
           <>
-            {orders.content.map((order) => (
+            {orders.map((order) => (
               <OrderCard
                 key={order.id}
                 order={order}
@@ -81,35 +111,11 @@ export const OrdersTab: React.FC<OrdersTabProps> = ({
               />
             ))}
 
-            {/* Pagination */}
-            {orders.page.totalPages > 1 && (
-              <div className="flex justify-center items-center gap-4 mt-6">
-                <Button
-                  variant="outline"
-                  disabled={currentPage === 0 || loading}
-                  onClick={() => setCurrentPage(Math.max(0, currentPage - 1))}
-                >
-                  <ChevronLeft className="h-4 w-4 mr-2" />
-                  Previous
-                </Button>
-
-                <span className="text-sm text-gray-600">
-                  Page {currentPage + 1} of {orders.page.totalPages}
-                </span>
-
-                <Button
-                  variant="outline"
-                  disabled={
-                    currentPage >= orders.page.totalPages - 1 || loading
-                  }
-                  onClick={() =>
-                    setCurrentPage(
-                      Math.min(orders.page.totalPages - 1, currentPage + 1)
-                    )
-                  }
-                >
-                  Next
-                  <ChevronRight className="h-4 w-4 ml-2" />
+            {/* Keyset pagination: each page continues after the last order shown */}
+            {hasMore && (
+              <div className="flex justify-center items-center mt-6">
+                <Button variant="outline" disabled={loading} onClick={onLoadMore}>
+                  {loading ? "Loading..." : "Load more"}
                 </Button>
               </div>
             )}
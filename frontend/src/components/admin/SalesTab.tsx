@@ -0,0 +1,96 @@
+import React, { useEffect, useState } from "react";
+import { Card, CardContent, CardHeader, CardTitle } from "@/components/ui/card";
+import { Spinner } from "@/components/ui/spinner";
+import { useApi } from "@/hooks/useApi";
+import { useToast } from "@/context/ToastContext";
+import { formatPriceUk } from "@/lib/utils";
+import {
+  PaymentStatus,
+  type ProductSales,
+  type SalesPoint,
+} from "@/services/api";
+
+// Paid sales over the last 30 days, read from the server-side rollups
+export const SalesTab: React.FC = () => {
+  const { api } = useApi();
+  const { showError } = useToast();
+  const [daily, setDaily] = useState<SalesPoint[] | null>(null);
+  const [topProducts, setTopProducts] = useState<ProductSales[]>([]);
+
+  useEffect(() => {
+    Promise.all([
+      api.getDailySales(undefined, undefined, PaymentStatus.PAID),
+      api.getTopProducts(undefined, undefined, "REVENUE", 5),
+    ])
+      .then(([points, products]) => {
+        setDaily(points);
+        setTopProducts(products);
+      })
+      .catch(() => showError("Failed to fetch sales"));
+  }, []);
+
+  if (!daily) {
+    return (
+      <div className="flex justify-center items-center py-8">
+        <Spinner variant="circle-filled" size={32} />
+      </div>
+    );
+  }
+
+  const revenue = daily.reduce((sum, point) => sum + point.revenue, 0);
+  const orders = daily.reduce((sum, point) => sum + point.order_count, 0);
+  const units = daily.reduce((sum, point) => sum + point.units, 0);
+
+  return (
+    <div className="space-y-6">
+      <div className="grid grid-cols-1 sm:grid-cols-3 gap-4">
+        <Card>
+          <CardHeader>
+            <CardTitle>Revenue (30 days)</CardTitle>
+          </CardHeader>
+          <CardContent className="text-2xl font-bold">
+            {formatPriceUk(revenue)}
+          </CardContent>
+        </Card>
+        <Card>
+          <CardHeader>
+            <CardTitle>Paid orders</CardTitle>
+          </CardHeader>
+          <CardContent className="text-2xl font-bold">{orders}</CardContent>
+        </Card>
+        <Card>
+          <CardHeader>
+            <CardTitle>Units sold</CardTitle>
+          </CardHeader>
+          <CardContent className="text-2xl font-bold">{units}</CardContent>
+        </Card>
+      </div>
+
+      <Card>
+        <CardHeader>
+          <CardTitle>Top products</CardTitle>
+        </CardHeader>
+        <CardContent className="space-y-2">
+          {topProducts.length === 0 ? (
+            <p className="text-gray-500">No paid sales yet.</p>
+          ) : (
+            topProducts.map((product) => (
+              <div
+                key={product.product_id}
+                className="flex justify-between text-sm"
+              >
+                <span>
+                  {product.name ?? `Product #${product.product_id}`} ×{" "}
+                  {product.units}
+                </span>
+                <span className="font-medium">
+                  {formatPriceUk(product.revenue)}
+                </span>
+              </div>
+            ))
+          )}
+        </CardContent>
+      </Card>
+    </div>
+  );
+};
@@ -3,4 +3,5 @@ export { ProductsTab } from "./ProductsTab";
 export { OrderFilters } from "./OrderFilters";
 export { OrderCard } from "./OrderCard";
 export { OrdersTab } from "./OrdersTab";
+export { SalesTab } from "./SalesTab";
 export * from "./types";
@@ -1,4 +1,21 @@
 import { z } from "zod";
+import { TrackingStatus } from "@/services/api";
+
+// The status an order moves to when advanced one step, if any
+export const nextTrackingStatus = (
+  currentStatus: TrackingStatus
+): TrackingStatus | null => {
+  switch (currentStatus) {
+    case TrackingStatus.NOT_SHIPPED:
+      return TrackingStatus.SHIPPED;
+    case TrackingStatus.SHIPPED:
+      return TrackingStatus.IN_TRANSIT;
+    case TrackingStatus.IN_TRANSIT:
+      return TrackingStatus.DELIVERED;
+    default:
+      return null;
+  }
+};
 
 // Zod schema for product form validation
 export const productFormSchema = z.object({
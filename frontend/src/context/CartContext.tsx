@@ -9,9 +9,12 @@ import { useApi } from "@/hooks/useApi";
 import { useAuth } from "@/context/AuthContext";
 import { ApiError } from "@/services/error";
 import type CartItem from "@/models/CartItem";
+import type { CartOperation, CartSummary, GetCartResponse } from "@/services/api";
 
 interface CartContextType {
   cartItems: CartItem[];
+  // Server-computed totals for the whole cart, null until the cart has loaded
+  cartSummary: CartSummary | null;
   cartItemCount: number;
   loading: boolean;
   error: string | null;
@@ -39,6 +42,7 @@ export function CartProvider({ children }: { children: React.ReactNode }) {
   const { api } = useApi();
   const { user } = useAuth();
   const [cartItems, setCartItems] = useState<CartItem[]>([]);
+  const [cartSummary, setCartSummary] = useState<CartSummary | null>(null);
   const [loading, setLoading] = useState<boolean>(false);
   const [error, setError] = useState<string | null>(null);
 
@@ -56,10 +60,27 @@ export function CartProvider({ children }: { children: React.ReactNode }) {
     return (await api.createPayment(response.id)).url;
   }, []);
 
+  const applyCart = useCallback((response: GetCartResponse) => {
+    const cartItems: CartItem[] = response.products.map((item) => ({
+      id: item.product_id,
+      name: item.name,
+      description: item.description,
+      net_price: item.net_price,
+      vat_rate: item.vat_rate,
+      currency: item.currency,
+      quantity: item.quantity,
+      stock: item.stock,
+      line_total: item.line_total,
+    }));
+    setCartItems(cartItems);
+    setCartSummary(response.summary);
+  }, []);
+
   const refreshCart = useCallback(async () => {
     if (loading) return;
     if (!user) {
       setCartItems([]);
+      setCartSummary(null);
       return;
     }
 
@@ -67,18 +88,7 @@ export function CartProvider({ children }: { children: React.ReactNode }) {
     setError(null);
 
     try {
-      const response = await api.getCart();
-      const cartItems: CartItem[] = response.products.map((item) => ({
-        id: item.product_id,
-        name: item.name,
-        description: item.description,
-        net_price: item.net_price,
-        vat_rate: item.vat_rate,
-        currency: item.currency,
-        quantity: item.quantity,
-        stock: item.stock,
-      }));
-      setCartItems(cartItems);
+      applyCart(await api.getCart());
     } catch (err) {
       if (err instanceof ApiError) {
         setError(err.message);
@@ -89,7 +99,15 @@ export function CartProvider({ children }: { children: React.ReactNode }) {
     } finally {
       setLoading(false);
     }
-  }, [api, user, loading]);
+  }, [api, user, loading, applyCart]);
+
+  // Applies one line change and takes the resulting cart from the same response
+  const applyOperation = useCallback(
+    async (operation: CartOperation) => {
+      applyCart(await api.batchUpdateCart({ operations: [operation] }));
+    },
+    [api, applyCart]
+  );
 
   const incrementProduct = useCallback(
     async (productId: number) => {
@@ -102,12 +120,7 @@ export function CartProvider({ children }: { children: React.ReactNode }) {
       setError(null);
 
       try {
-        await api.addOrRemoveProductFromCart({
-          product_id: productId,
-          quantity: 1,
-        });
-        // Refresh cart after adding item
-        await refreshCart();
+        await applyOperation({ product_id: productId, delta: 1 });
       } catch (err) {
         if (err instanceof ApiError) {
           setError(err.message);
@@ -119,7 +132,7 @@ export function CartProvider({ children }: { children: React.ReactNode }) {
         setLoading(false);
       }
     },
-    [api, user, refreshCart]
+    [user, applyOperation]
   );
 
   const decrementProduct = useCallback(
@@ -133,12 +146,7 @@ export function CartProvider({ children }: { children: React.ReactNode }) {
       setError(null);
 
       try {
-        await api.addOrRemoveProductFromCart({
-          product_id: productId,
-          quantity: -1,
-        });
-        // Refresh cart after removing item
-        await refreshCart();
+        await applyOperation({ product_id: productId, delta: -1 });
       } catch (err) {
         if (err instanceof ApiError) {
           setError(err.message);
@@ -150,7 +158,7 @@ export function CartProvider({ children }: { children: React.ReactNode }) {
         setLoading(false);
       }
     },
-    [api, user, refreshCart]
+    [user, applyOperation]
   );
 
   const removeProduct = useCallback(
@@ -220,12 +228,7 @@ export function CartProvider({ children }: { children: React.ReactNode }) {
       setError(null);
 
       try {
-        await api.updateCart({
-          product_id: productId,
-          quantity,
-        });
-        // Refresh cart after updating item
-        await refreshCart();
+        await applyOperation({ product_id: productId, quantity });
       } catch (err) {
         if (err instanceof ApiError) {
           setError(err.message);
@@ -237,7 +240,7 @@ export function CartProvider({ children }: { children: React.ReactNode }) {
         setLoading(false);
       }
     },
-    [api, user, refreshCart]
+    [user, applyOperation]
   );
 
   // Load cart when user logs in or component mounts
@@ -247,6 +250,7 @@ export function CartProvider({ children }: { children: React.ReactNode }) {
     } else {
       // Clear cart when user logs out
       setCartItems([]);
+      setCartSummary(null);
       setError(null);
     }
   }, [user]);
@@ -255,6 +259,7 @@ export function CartProvider({ children }: { children: React.ReactNode }) {
 
   const value: CartContextType = {
     cartItems,
+    cartSummary,
     cartItemCount,
     loading,
     error,
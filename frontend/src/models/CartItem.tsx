@@ -10,9 +10,12 @@ export default interface CartItem {
   stock?: number;
   quantity: number;
   images?: ProductImage[];
+  // Gross line total from the server, rounded per unit as orders are charged
+  line_total?: number;
 }
 
 export const getGrossPrice = (item: CartItem): number => {
+  if (item.line_total !== undefined) return item.line_total;
   return Math.floor(
     item.net_price * item.quantity +
       (item.net_price * item.quantity * item.vat_rate + 50) / 100
@@ -5,21 +5,22 @@ import {
   PaymentStatus,
   TrackingStatus,
   type AdminOrderResponse,
-  type Page,
   type UpdateOrderStatusRequest,
 } from "@/services/api";
 import { Navbar } from "@/components/ui/navbar";
 import Loading from "./Loading";
 import { Tabs, TabsList, TabsTrigger, TabsContent } from "@/components/ui/tabs";
-import { OrdersTab, ProductsTab } from "../components/admin";
+import { OrdersTab, ProductsTab, SalesTab } from "../components/admin";
 import type Product from "@/models/Product";
 
 const AdminDashboard: React.FC = () => {
   const { api } = useApi();
   const { showError, showSuccess } = useToast();
-  const [orders, setOrders] = useState<Page<AdminOrderResponse> | null>(null);
+  const [orders, setOrders] = useState<AdminOrderResponse[] | null>(null);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
   const [loading, setLoading] = useState(true);
   const [updating, setUpdating] = useState<number | null>(null);
+  const [bulkUpdating, setBulkUpdating] = useState(false);
 
   // Filter states
   const [paymentFilter, setPaymentFilter] = useState<PaymentStatus | undefined>(
@@ -28,22 +29,24 @@ const AdminDashboard: React.FC = () => {
   const [trackingFilter, setTrackingFilter] = useState<
     TrackingStatus | undefined
   >(TrackingStatus.NOT_SHIPPED);
-  const [currentPage, setCurrentPage] = useState(0);
   const [pageSize] = useState(20);
 
   // Product state
   const [products, setProducts] = useState<Product[]>([]);
 
-  const fetchOrders = async () => {
+  // Loads the first page, or appends the page after `cursor`
+  const fetchOrders = async (cursor?: string) => {
     try {
       setLoading(true);
-      const response = await api.getAdminOrders(
-        paymentFilter,
-        trackingFilter,
-        currentPage,
+      const response = await api.listAdminOrders(
+        { payment_status: paymentFilter, tracking_status: trackingFilter },
+        cursor,
         pageSize
       );
-      setOrders(response);
+      setOrders((previous) =>
+        cursor && previous ? [...previous, ...response.orders] : response.orders
+      );
+      setNextCursor(response.next_cursor);
     } catch (error) {
       console.error("Error fetching orders:", error);
       showError("Failed to fetch orders");
@@ -63,7 +66,7 @@ const AdminDashboard: React.FC = () => {
 
   useEffect(() => {
     fetchOrders();
-  }, [paymentFilter, trackingFilter, currentPage]);
+  }, [paymentFilter, trackingFilter]);
 
   useEffect(() => {
     fetchProducts();
@@ -89,10 +92,31 @@ const AdminDashboard: React.FC = () => {
     }
   };
 
+  const handleBulkStatusUpdate = async (
+    orderIds: number[],
+    newStatus: TrackingStatus
+  ) => {
+    try {
+      setBulkUpdating(true);
+      const response = await api.bulkUpdateOrderStatus({
+        tracking_status: newStatus,
+        order_ids: orderIds,
+      });
+      showSuccess(
+        `${response.updated} of ${orderIds.length} orders updated to ${newStatus.replace("_", " ")}`
+      );
+      fetchOrders(); // Refresh the orders
+    } catch (error) {
+      console.error("Error updating order statuses:", error);
+      showError("Failed to update order statuses");
+    } finally {
+      setBulkUpdating(false);
+    }
+  };
+
   const handleResetFilters = () => {
     setPaymentFilter(PaymentStatus.PAID);
     setTrackingFilter(TrackingStatus.NOT_SHIPPED);
-    setCurrentPage(0);
   };
 
   if (loading && !orders) {
@@ -112,33 +136,34 @@ const AdminDashboard: React.FC = () => {
           <TabsList className="mb-6">
             <TabsTrigger value="orders">Orders</TabsTrigger>
             <TabsTrigger value="products">Products</TabsTrigger>
+            <TabsTrigger value="sales">Sales</TabsTrigger>
           </TabsList>
 
           <TabsContent value="orders">
             <OrdersTab
               orders={orders}
+              hasMore={nextCursor !== null}
               loading={loading}
               updating={updating}
+              bulkUpdating={bulkUpdating}
               paymentFilter={paymentFilter}
-              setPaymentFilter={(filter) => {
-                setPaymentFilter(filter);
-                setCurrentPage(0);
-              }}
+              setPaymentFilter={setPaymentFilter}
               trackingFilter={trackingFilter}
-              setTrackingFilter={(filter) => {
-                setTrackingFilter(filter);
-                setCurrentPage(0);
-              }}
-              currentPage={currentPage}
-              setCurrentPage={setCurrentPage}
+              setTrackingFilter={setTrackingFilter}
+              onLoadMore={() => nextCursor && fetchOrders(nextCursor)}
               onResetFilters={handleResetFilters}
               onStatusUpdate={handleStatusUpdate}
+              onBulkStatusUpdate={handleBulkStatusUpdate}
             />
           </TabsContent>
 
           <TabsContent value="products">
             <ProductsTab products={products} onRefresh={fetchProducts} />
           </TabsContent>
+
+          <TabsContent value="sales">
+            <SalesTab />
+          </TabsContent>
         </Tabs>
       </div>
     </div>
@@ -12,6 +12,7 @@ import { useState } from "react";
 const CartPage = () => {
   const {
     cartItems,
+    cartSummary,
     cartItemCount,
     error,
     loading,
@@ -37,16 +38,28 @@ const CartPage = () => {
     }).format(priceInPence / 100);
   };
 
+  // The server's summary covers the whole cart, so it is used as-is when every
+  // item is selected. A partial selection adds up the server-rounded line totals.
+  const wholeCart =
+    cartItems.length > 0 && selectedItems.size === cartItems.length
+      ? cartSummary
+      : null;
+
   const calculateSubtotal = () => {
+    if (wholeCart) return wholeCart.subtotal;
     return cartItems
       .filter((item) => selectedItems.has(item.id))
       .reduce((total, item) => total + getGrossPrice(item), 0);
   };
 
+  const calculateShipping = () => {
+    if (wholeCart) return wholeCart.shipping;
+    return selectedItems.size > 0 ? shippingCost : 0;
+  };
+
   const calculateTotal = () => {
-    const subtotal = calculateSubtotal();
-    const shipping = selectedItems.size > 0 ? shippingCost : 0;
-    return subtotal + shipping;
+    if (wholeCart) return wholeCart.total;
+    return calculateSubtotal() + calculateShipping();
   };
 
   const getSelectedItems = () => {
@@ -54,6 +67,7 @@ const CartPage = () => {
   };
 
   const getSelectedItemCount = () => {
+    if (wholeCart) return wholeCart.item_count;
     return getSelectedItems().reduce((count, item) => count + item.quantity, 0);
   };
 
@@ -330,7 +344,7 @@ const CartPage = () => {
                   <div className="flex justify-between text-gray-600 dark:text-gray-400">
                     <span>Shipping:</span>
                     <span>
-                      {selectedItems.size > 0 ? formatPrice(shippingCost) : "£0.00"}
+                      {formatPrice(calculateShipping())}
                     </span>
                   </div>
                   <div className="border-t pt-2">
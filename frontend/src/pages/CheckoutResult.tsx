@@ -14,7 +14,6 @@ import {
   Clock,
 } from "lucide-react";
 import { useCart } from "@/context/CartContext";
-import { getGrossPrice } from "@/models/Product";
 import { formatPriceUk } from "@/lib/utils";
 
 const CheckoutResult = () => {
@@ -248,9 +247,7 @@ const CheckoutResult = () => {
                         Quantity: {item.quantity}
                       </span>
                       <span className="font-medium text-gray-900">
-                        {formatPriceUk(
-                          getGrossPrice(item.product) * item.quantity
-                        )}
+                        {formatPriceUk(item.line_total)}
                       </span>
                     </div>
                   </div>
@@ -265,7 +262,7 @@ const CheckoutResult = () => {
                     <span>
                       {formatPriceUk(
                         order.items.reduce(
-                          (sum, item) => sum + getGrossPrice(item.product) * item.quantity,
+                          (sum, item) => sum + item.line_total,
                           0
                         )
                       )}
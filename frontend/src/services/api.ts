@@ -14,6 +14,7 @@ export interface Api {
   addOrRemoveProductFromCart(req: AddOrRemoveCartProductRequest): Promise<void>;
   removeCartItem(productId: number): Promise<void>;
   updateCart(req: UpdateCartRequest): Promise<void>;
+  batchUpdateCart(req: BatchCartRequest): Promise<GetCartResponse>;
   login(req: LoginRequest): Promise<AuthResponse>;
   register(req: RegisterRequest): Promise<AuthResponse>;
   refreshToken(req: RefreshTokenRequest): Promise<AuthResponse>;
@@ -36,11 +37,83 @@ export interface Api {
     page?: number,
     size?: number
   ): Promise<Page<AdminOrderResponse>>;
+  listAdminOrders(
+    filter: AdminOrderFilter,
+    cursor?: string,
+    limit?: number
+  ): Promise<AdminOrderPage>;
   updateOrderStatus(
     orderId: number,
     req: UpdateOrderStatusRequest
   ): Promise<AdminOrderResponse>;
+  bulkUpdateOrderStatus(
+    req: BulkTrackingUpdateRequest
+  ): Promise<BulkTrackingUpdateResponse>;
+  getDailySales(
+    from?: string,
+    to?: string,
+    paymentStatus?: PaymentStatus
+  ): Promise<SalesPoint[]>;
+  getTopProducts(
+    from?: string,
+    to?: string,
+    by?: "REVENUE" | "UNITS",
+    limit?: number
+  ): Promise<ProductSales[]>;
 }
+// Optional filters for the keyset admin order listing; dates are ISO local date-times
+export interface AdminOrderFilter {
+  payment_status?: PaymentStatus;
+  tracking_status?: TrackingStatus;
+  from?: string;
+  to?: string;
+  user_id?: number;
+  min_total?: number;
+}
+
+// Either order_ids or filter; orders only move forward through tracking statuses
+export interface BulkTrackingUpdateRequest {
+  tracking_status: TrackingStatus;
+  order_ids?: number[];
+  filter?: {
+    payment_status?: PaymentStatus;
+    tracking_status?: TrackingStatus;
+    from?: string;
+    to?: string;
+  };
+}
+
+export interface BulkTrackingUpdateResponse {
+  updated: number;
+  results: Array<{
+    order_id: number;
+    outcome: "UPDATED" | "UNCHANGED" | "INVALID_TRANSITION" | "NOT_FOUND";
+    previous_status: TrackingStatus | null;
+  }>;
+}
+
+// Sales rollups; amounts in pence, date ranges are [from, to) as yyyy-mm-dd
+export interface SalesPoint {
+  day: string;
+  payment_status: PaymentStatus;
+  order_count: number;
+  units: number;
+  revenue: number;
+}
+
+export interface ProductSales {
+  product_id: number;
+  name: string | null;
+  order_count: number;
+  units: number;
+  revenue: number;
+}
+
+export interface AdminOrderPage {
+  orders: AdminOrderResponse[];
+  next_cursor: string | null;
+}
+
 export interface Page<T> {
   content: T[];
   page: {
@@ -56,6 +129,8 @@ export interface OrderResponse {
   payment_status: PaymentStatus;
   tracking_status: TrackingStatus;
   order_date: string;
+  subtotal_net?: number;
+  vat_total?: number;
   total_price: number;
   shipping_cost: number;
   items: Array<OrderProductResponse>;
@@ -86,6 +161,10 @@ export const TrackingStatus = {
 export interface OrderProductResponse {
   product: Product;
   quantity: number;
+  // Prices charged when the order was placed
+  unit_net_price: number;
+  unit_price: number;
+  line_total: number;
 }
 
 export interface NewOrderRequest {
@@ -176,9 +255,32 @@ export interface UpdateCartRequest {
   quantity: number;
 }
 
+// Exactly one of delta or quantity per operation
+export interface CartOperation {
+  product_id: number;
+  delta?: number;
+  quantity?: number;
+}
+
+export interface BatchCartRequest {
+  operations: CartOperation[];
+}
+
 export interface GetCartResponse {
   cart_id: number;
   products: Array<GetCartItemResponseItem>;
+  summary: CartSummary;
+}
+
+// Server-computed totals in pence, rounded as orders are charged
+export interface CartSummary {
+  item_count: number;
+  subtotal_net: number;
+  vat: Array<{ rate: number; net: number; vat: number }>;
+  vat_total: number;
+  subtotal: number;
+  shipping: number;
+  total: number;
 }
 
 export interface GetCartItemResponseItem {
@@ -190,6 +292,8 @@ export interface GetCartItemResponseItem {
   currency: string;
   stock?: number;
   quantity: number;
+  unit_price: number;
+  line_total: number;
 }
 
 // Admin interfaces
@@ -198,6 +302,8 @@ export interface AdminOrderResponse {
   payment_status: PaymentStatus;
   tracking_status: TrackingStatus;
   order_date: string;
+  subtotal_net?: number;
+  vat_total?: number;
   total_price: number;
   shipping_cost: number;
   items: Array<OrderProductResponse>;
@@ -473,6 +579,18 @@ export class ApiService implements Api {
       },
     });
   }
+  public async batchUpdateCart(req: BatchCartRequest): Promise<GetCartResponse> {
+    const tokens = this.getToken();
+    if (!tokens) throw new ApiError("No tokens", 401);
+    return this.request<GetCartResponse>("/cart/batch", {
+      method: "PATCH",
+      body: JSON.stringify(req),
+      headers: {
+        "Content-Type": "application/json",
+        Authorization: `Bearer ${tokens.accessToken}`,
+      },
+    });
+  }
   public async removeCartItem(productId: number): Promise<void> {
     const tokens = this.getToken();
     if (!tokens) throw new ApiError("No tokens", 401);
@@ -570,6 +688,32 @@ export class ApiService implements Api {
     );
   }
 
+  public async listAdminOrders(
+    filter: AdminOrderFilter,
+    cursor?: string,
+    limit = 20
+  ): Promise<AdminOrderPage> {
+    const tokens = this.getToken();
+    if (!tokens) throw new ApiError("No tokens", 401);
+
+    const params = new URLSearchParams({ limit: limit.toString() });
+    Object.entries(filter).forEach(([key, value]) => {
+      if (value !== undefined && value !== "") {
+        params.append(key, String(value));
+      }
+    });
+    if (cursor) {
+      params.append("cursor", cursor);
+    }
+
+    return this.request<AdminOrderPage>(`/admin/orders?${params.toString()}`, {
+      method: "GET",
+      headers: {
+        Authorization: `Bearer ${tokens.accessToken}`,
+      },
+    });
+  }
+
   public async updateOrderStatus(
     orderId: number,
     req: UpdateOrderStatusRequest
@@ -585,4 +729,63 @@ export class ApiService implements Api {
       },
     });
   }
+
+  public async bulkUpdateOrderStatus(
+    req: BulkTrackingUpdateRequest
+  ): Promise<BulkTrackingUpdateResponse> {
+    const tokens = this.getToken();
+    if (!tokens) throw new ApiError("No tokens", 401);
+    return this.request<BulkTrackingUpdateResponse>("/admin/orders/batch", {
+      method: "PATCH",
+      body: JSON.stringify(req),
+      headers: {
+        "Content-Type": "application/json",
+        Authorization: `Bearer ${tokens.accessToken}`,
+      },
+    });
+  }
+
+  public async getDailySales(
+    from?: string,
+    to?: string,
+    paymentStatus?: PaymentStatus
+  ): Promise<SalesPoint[]> {
+    const tokens = this.getToken();
+    if (!tokens) throw new ApiError("No tokens", 401);
+    const params = new URLSearchParams();
+    if (from) params.append("from", from);
+    if (to) params.append("to", to);
+    if (paymentStatus) params.append("payment_status", paymentStatus);
+    return this.request<SalesPoint[]>(
+      `/admin/analytics/sales/daily?${params.toString()}`,
+      {
+        method: "GET",
+        headers: {
+          Authorization: `Bearer ${tokens.accessToken}`,
+        },
+      }
+    );
+  }
+
+  public async getTopProducts(
+    from?: string,
+    to?: string,
+    by: "REVENUE" | "UNITS" = "REVENUE",
+    limit = 10
+  ): Promise<ProductSales[]> {
+    const tokens = this.getToken();
+    if (!tokens) throw new ApiError("No tokens", 401);
+    const params = new URLSearchParams({ by, limit: limit.toString() });
+    if (from) params.append("from", from);
+    if (to) params.append("to", to);
+    return this.request<ProductSales[]>(
+      `/admin/analytics/products/top?${params.toString()}`,
+      {
+        method: "GET",
+        headers: {
+          Authorization: `Bearer ${tokens.accessToken}`,
+        },
+      }
+    );
+  }
 }